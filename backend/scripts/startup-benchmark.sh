@@ -0,0 +1,88 @@
+#!/usr/bin/env bash
+#
+# Mide el tiempo desde el arranque del proceso hasta la primera jugada
+# aceptada en /app/game/move, comparando el build normal con el perfil
+# fast-startup (AOT + CDS + inicialización perezosa).
+#
+# Requiere haber compilado con:  mvn -Pfast-startup package
+# Uso:                           ./scripts/startup-benchmark.sh [repeticiones]
+#
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS="${1:-5}"
+PORT="${PORT:-18080}"
+BASE="http://localhost:${PORT}"
+THIN_JAR="target/tictactoe-websocket-1.0.0.jar"
+FAT_JAR="target/tictactoe-websocket-1.0.0-exec.jar"
+
+if [[ ! -f "$THIN_JAR" || ! -f "$FAT_JAR" || ! -f target/app.jsa ]]; then
+    echo "Falta el build: ejecuta 'mvn -Pfast-startup package' primero" >&2
+    exit 1
+fi
+
+# Envía un frame STOMP por el transporte xhr de SockJS
+sockjs_send() {
+    curl -sf -o /dev/null -X POST -H 'Content-Type: text/plain' --data-binary "$2" "$1/xhr_send"
+}
+
+# Arranca la aplicación, hace una jugada lo antes posible y devuelve los ms reportados
+measure() {
+    local log
+    log="$(mktemp)"
+    "$@" --server.port="$PORT" > "$log" 2>&1 &
+    local pid=$!
+
+    # Crear un torneo de 2 jugadores: deja una partida activa con IDs conocidos
+    local tournament=""
+    until tournament="$(curl -sf -X POST -H 'Content-Type: application/json' \
+            -d '{"name":"bench","usernames":["a","b"]}' "$BASE/api/tournaments")"; do
+        sleep 0.01
+    done
+    local tid gid pid_player
+    tid="$(grep -o '"tournamentId":"[^"]*"' <<< "$tournament" | cut -d'"' -f4)"
+    curl -sf -o /dev/null -X POST "$BASE/api/tournaments/$tid/start"
+    gid="$(curl -sf "$BASE/api/tournaments/$tid" | grep -o '"gameId":"[^"]*"' | head -1 | cut -d'"' -f4)"
+    pid_player="$(curl -sf "$BASE/api/games/$gid" | grep -o '"currentPlayer":{"id":"[^"]*"' | cut -d'"' -f6)"
+
+    local session="$BASE/ws/000/$RANDOM$RANDOM"
+    curl -sf -o /dev/null -X POST "$session/xhr"
+    sockjs_send "$session" '["CONNECT\naccept-version:1.2\nheart-beat:0,0\n\n\u0000"]'
+    sockjs_send "$session" "[\"SEND\ndestination:/app/game/move\ncontent-type:application/json\n\n{\\\"gameId\\\":\\\"$gid\\\",\\\"playerId\\\":\\\"$pid_player\\\",\\\"position\\\":0}\u0000\"]"
+
+    local line=""
+    for _ in $(seq 1 500); do
+        line="$(grep -a 'Primera jugada aceptada' "$log" || true)"
+        [[ -n "$line" ]] && break
+        sleep 0.01
+    done
+    kill "$pid" 2>/dev/null || true
+    wait "$pid" 2>/dev/null || true
+    rm -f "$log"
+
+    if [[ -z "$line" ]]; then
+        echo "sin-jugada"
+    else
+        sed -E 's/.* a ([0-9]+) ms del arranque del proceso .*/\1/' <<< "$line"
+    fi
+}
+
+report() {
+    local name="$1"; shift
+    local total=0 count=0 ms
+    for i in $(seq 1 "$RUNS"); do
+        ms="$(measure "$@")"
+        echo "  $name #$i: $ms ms"
+        if [[ "$ms" =~ ^[0-9]+$ ]]; then
+            total=$((total + ms)); count=$((count + 1))
+        fi
+    done
+    if (( count > 0 )); then
+        echo "$name: promedio $((total / count)) ms hasta la primera jugada ($count corridas)"
+    fi
+}
+
+report "normal" java -jar "$FAT_JAR"
+report "fast-startup" java -XX:SharedArchiveFile=target/app.jsa -Xlog:cds=off -Xlog:cds+dynamic=off \
+    -Dspring.aot.enabled=true -Dspring.profiles.active=fast-startup -jar "$THIN_JAR"
@@ -0,0 +1,55 @@
+package com.arsw.tictactoe.config;
+
+import com.arsw.tictactoe.service.AdmissionControl;
+import com.arsw.tictactoe.service.ServerBusyException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Admisión en el canal de entrada STOMP
+ *
+ * Cuenta las sesiones y rechaza el CONNECT cuando se alcanzó el máximo (el
+ * cliente recibe un frame ERROR con el encabezado retry-after). A cada SEND le
+ * marca la hora de llegada antes de que espere en la cola del canal, para que
+ * la latencia de las jugadas incluya esa espera.
+ */
+@Component
+public class AdmissionInterceptor implements ChannelInterceptor {
+    
+    @Autowired
+    private AdmissionControl admission;
+    
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+        
+        switch (accessor.getCommand()) {
+            case CONNECT:
+                if (!admission.admitSession(accessor.getSessionId())) {
+                    throw new ServerBusyException("Servidor ocupado: demasiadas conexiones", admission.getRetryAfterSeconds());
+                }
+                return message;
+            
+            case DISCONNECT:
+                admission.sessionClosed(accessor.getSessionId());
+                return message;
+            
+            case SEND:
+                StompHeaderAccessor stamped = StompHeaderAccessor.wrap(message);
+                stamped.setHeader(AdmissionControl.RECEIVED_AT_HEADER, System.currentTimeMillis());
+                return MessageBuilder.createMessage(message.getPayload(), stamped.getMessageHeaders());
+            
+            default:
+                return message;
+        }
+    }
+}
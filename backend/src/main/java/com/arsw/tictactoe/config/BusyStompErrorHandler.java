@@ -0,0 +1,32 @@
+package com.arsw.tictactoe.config;
+
+import com.arsw.tictactoe.service.ServerBusyException;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.messaging.StompSubProtocolErrorHandler;
+
+/**
+ * Frame ERROR con encabezado retry-after cuando se rechaza una conexión por carga
+ */
+public class BusyStompErrorHandler extends StompSubProtocolErrorHandler {
+    
+    @Override
+    public Message<byte[]> handleClientMessageProcessingError(Message<byte[]> clientMessage, Throwable ex) {
+        Throwable cause = ex;
+        while (cause != null && !(cause instanceof ServerBusyException)) {
+            cause = cause.getCause();
+        }
+        if (cause == null) {
+            return super.handleClientMessageProcessingError(clientMessage, ex);
+        }
+        
+        ServerBusyException busy = (ServerBusyException) cause;
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.ERROR);
+        accessor.setMessage(busy.getMessage());
+        accessor.setNativeHeader("retry-after", String.valueOf(busy.getRetryAfterSeconds()));
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,109 @@
+package com.arsw.tictactoe.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.websocket.server.ServerEndpointConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.server.standard.TomcatRequestUpgradeStrategy;
+
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Negocia permessage-deflate (con context takeover) mientras haya lugar
+ *
+ * Cada sesión comprimida guarda un Deflater y un Inflater de zlib con la
+ * ventana completa (~300 KB de memoria nativa) y desde Java no se puede
+ * achicar la ventana, así que la memoria se acota con la cantidad de sesiones
+ * comprimidas. Por encima del máximo la conexión se acepta igual, sin
+ * compresión. Las sesiones se cuentan con el decorador de {@link #decorate}.
+ */
+@Component
+public class DeflateUpgradeStrategy extends TomcatRequestUpgradeStrategy {
+    
+    private static final String EXTENSION = "permessage-deflate";
+    private static final String COUNTED = DeflateUpgradeStrategy.class.getName() + ".counted";
+    
+    @Value("${tictactoe.ws.compression.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${tictactoe.ws.compression.max-sessions:500}")
+    private int maxSessions;
+    
+    private final AtomicInteger compressedSessions = new AtomicInteger();
+    
+    @Override
+    protected void upgradeHttpToWebSocket(HttpServletRequest request, HttpServletResponse response,
+                                          ServerEndpointConfig endpointConfig, Map<String, String> pathParams) throws Exception {
+        // El límite es aproximado: dos handshakes simultáneos pueden pasarlo por uno
+        if (!enabled || compressedSessions.get() >= maxSessions) {
+            // Tomcat negocia la compresión por su cuenta a partir del encabezado: hay que ocultarlo
+            request = new WithoutExtensions(request);
+        }
+        super.upgradeHttpToWebSocket(request, response, endpointConfig, pathParams);
+    }
+    
+    /**
+     * Envuelve el handler de WebSocket para contar las sesiones que quedaron comprimidas
+     */
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                if (session.getExtensions().stream().anyMatch(extension -> EXTENSION.equals(extension.getName()))) {
+                    compressedSessions.incrementAndGet();
+                    session.getAttributes().put(COUNTED, Boolean.TRUE);
+                }
+                super.afterConnectionEstablished(session);
+            }
+            
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                if (session.getAttributes().remove(COUNTED) != null) {
+                    compressedSessions.decrementAndGet();
+                }
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+    
+    /**
+     * Pedido de handshake sin el encabezado Sec-WebSocket-Extensions
+     */
+    private static class WithoutExtensions extends HttpServletRequestWrapper {
+        
+        WithoutExtensions(HttpServletRequest request) {
+            super(request);
+        }
+        
+        @Override
+        public String getHeader(String name) {
+            return isExtensions(name) ? null : super.getHeader(name);
+        }
+        
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return isExtensions(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+        
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            return Collections.enumeration(Collections.list(super.getHeaderNames()).stream()
+                    .filter(name -> !isExtensions(name))
+                    .toList());
+        }
+        
+        private static boolean isExtensions(String name) {
+            return WebSocketHttpHeaders.SEC_WEBSOCKET_EXTENSIONS.equalsIgnoreCase(name);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.arsw.tictactoe.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Ajustes de Tomcat para mantener muchas peticiones long-poll estacionadas
+ *
+ * Una petición asíncrona en espera no ocupa un hilo pero sí conserva sus
+ * buffers de socket. Achicarlos es opcional ({@code tictactoe.poll.socket-buffer-bytes},
+ * 0 = los de Tomcat): el buffer de lectura también recibe los encabezados de
+ * la petición y el de escritura las respuestas de todo el servidor, no solo
+ * los deltas del long-poll.
+ */
+@Configuration
+public class LongPollConfig {
+    
+    @Value("${tictactoe.poll.socket-buffer-bytes:0}")
+    private int socketBufferBytes;
+    
+    @Bean
+    WebServerFactoryCustomizer<TomcatServletWebServerFactory> longPollConnector() {
+        return factory -> factory.addConnectorCustomizers(connector -> {
+            if (socketBufferBytes <= 0) {
+                return;
+            }
+            connector.setProperty("socket.appReadBufSize", String.valueOf(socketBufferBytes));
+            connector.setProperty("socket.appWriteBufSize", String.valueOf(socketBufferBytes));
+        });
+    }
+}
@@ -0,0 +1,32 @@
+package com.arsw.tictactoe.config;
+
+import com.arsw.tictactoe.controller.GameController;
+import com.arsw.tictactoe.service.GameService;
+import com.arsw.tictactoe.service.RatingService;
+import com.arsw.tictactoe.service.StartupMetrics;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuración del arranque con inicialización perezosa (perfil fast-startup)
+ */
+@Configuration
+public class StartupConfig {
+    
+    /**
+     * Beans que se crean al arrancar aunque spring.main.lazy-initialization esté activo:
+     * - El camino de una jugada, para que la primera no pague su creación
+     * - El rating, que carga su archivo al iniciar
+     * - Las métricas de arranque, que deben ver el ApplicationReadyEvent
+     */
+    @Bean
+    static LazyInitializationExcludeFilter eagerGameBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(
+            GameController.class,
+            GameService.class,
+            RatingService.class,
+            StartupMetrics.class
+        );
+    }
+}
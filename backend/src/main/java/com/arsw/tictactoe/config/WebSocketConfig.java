@@ -1,10 +1,15 @@
 package com.arsw.tictactoe.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
 
 /**
  * Configuración de WebSocket para el juego Tic-Tac-Toe Multijugador
@@ -13,20 +18,31 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
  * - STOMP (Simple Text Oriented Messaging Protocol) sobre WebSocket
  * - Message broker para pub/sub de eventos del juego
  * - Endpoints para conexiones de clientes
+ * - Admisión de sesiones (máximo global con "reintentar después")
+ * - Compresión permessage-deflate para un número acotado de sesiones
  */
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    // Perezoso: la admisión depende del juego, que a su vez necesita el broker que arma esta configuración
+    @Autowired
+    @Lazy
+    private AdmissionInterceptor admissionInterceptor;
+
+    @Autowired
+    private DeflateUpgradeStrategy deflateUpgradeStrategy;
+
     /**
      * Configura el message broker
      * - /topic: Para broadcasting a múltiples clientes (ej: actualización de juego)
+     * - /queue: Para respuestas a una sola sesión vía /user/queue/... (ej: servidor ocupado)
      * - /app: Prefijo para mensajes dirigidos a @MessageMapping
      */
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         // Habilitar un simple message broker en memoria
-        config.enableSimpleBroker("/topic");
+        config.enableSimpleBroker("/topic", "/queue");
         
         // Prefijo para mensajes destinados a @MessageMapping
         config.setApplicationDestinationPrefixes("/app");
@@ -41,7 +57,26 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns("*")  // Permitir conexiones desde cualquier origen (ajustar en producción)
+                .setHandshakeHandler(new DefaultHandshakeHandler(deflateUpgradeStrategy))  // Compresión solo hasta el máximo de sesiones
                 .withSockJS();  // Habilitar SockJS como fallback
+        registry.setErrorHandler(new BusyStompErrorHandler());
+    }
+
+    /**
+     * Cuenta las sesiones, rechaza conexiones nuevas por encima del máximo y
+     * marca la llegada de cada mensaje (ver {@link AdmissionInterceptor})
+     */
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(admissionInterceptor);
+    }
+
+    /**
+     * Cuenta las sesiones que negociaron compresión para respetar el máximo
+     */
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.addDecoratorFactory(deflateUpgradeStrategy::decorate);
     }
 }
 
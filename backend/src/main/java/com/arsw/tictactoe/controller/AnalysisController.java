@@ -0,0 +1,101 @@
+package com.arsw.tictactoe.controller;
+
+import com.arsw.tictactoe.dto.BranchRequest;
+import com.arsw.tictactoe.dto.ServerBusy;
+import com.arsw.tictactoe.model.AnalysisNode;
+import com.arsw.tictactoe.model.AnalysisSession;
+import com.arsw.tictactoe.model.BranchResult;
+import com.arsw.tictactoe.service.AnalysisService;
+import com.arsw.tictactoe.service.PlayerSessions;
+import com.arsw.tictactoe.service.ServerBusyException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Controlador REST para explorar jugadas alternativas de un juego
+ */
+@Controller
+public class AnalysisController {
+    
+    @Autowired
+    private AnalysisService analysisService;
+    
+    @Autowired
+    private PlayerSessions playerSessions;
+    
+    /**
+     * REST endpoint para abrir una sesión de análisis en una versión del juego
+     * (0 = la actual), con lo que ve el dueño de la clave mientras la partida
+     * sigue (sin clave, lo que ve un espectador)
+     */
+    @PostMapping("/api/analysis")
+    @ResponseBody
+    public AnalysisSession openSession(@RequestParam String gameId,
+                                       @RequestParam(defaultValue = "0") long version,
+                                       @RequestParam(required = false) String token) {
+        return analysisService.open(gameId, version, playerSessions.playerFor(gameId, token));
+    }
+    
+    /**
+     * REST endpoint para obtener una sesión de análisis con su nodo raíz
+     */
+    @GetMapping("/api/analysis/{sessionId}")
+    @ResponseBody
+    public AnalysisSession getSession(@PathVariable String sessionId) {
+        return analysisService.getSession(sessionId).orElse(null);
+    }
+    
+    /**
+     * REST endpoint para obtener una rama con su estado y la línea desde la raíz
+     */
+    @GetMapping("/api/analysis/{sessionId}/nodes/{nodeId}")
+    @ResponseBody
+    public AnalysisNode getNode(@PathVariable String sessionId, @PathVariable String nodeId) {
+        return analysisService.getSession(sessionId)
+                .map(session -> session.getNode(nodeId))
+                .orElse(null);
+    }
+    
+    /**
+     * REST endpoint para abrir varias ramas (evaluadas en paralelo)
+     */
+    @PostMapping("/api/analysis/{sessionId}/branches")
+    @ResponseBody
+    public List<BranchResult> branch(@PathVariable String sessionId, @RequestBody List<BranchRequest> requests) {
+        return analysisService.branch(sessionId, requests);
+    }
+    
+    /**
+     * REST endpoint para abrir una rama por cada jugada posible desde un nodo
+     */
+    @PostMapping("/api/analysis/{sessionId}/nodes/{nodeId}/expand")
+    @ResponseBody
+    public List<BranchResult> expand(@PathVariable String sessionId, @PathVariable String nodeId) {
+        return analysisService.expand(sessionId, nodeId);
+    }
+    
+    /**
+     * REST endpoint para cerrar una sesión de análisis
+     */
+    @DeleteMapping("/api/analysis/{sessionId}")
+    @ResponseBody
+    public void closeSession(@PathVariable String sessionId) {
+        analysisService.close(sessionId);
+    }
+    
+    /**
+     * REST: 503 con Retry-After
+     */
+    @ExceptionHandler(ServerBusyException.class)
+    public ResponseEntity<ServerBusy> busy(ServerBusyException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(new ServerBusy(e.getMessage(), e.getRetryAfterSeconds()));
+    }
+}
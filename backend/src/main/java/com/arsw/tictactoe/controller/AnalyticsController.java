@@ -0,0 +1,27 @@
+package com.arsw.tictactoe.controller;
+
+import com.arsw.tictactoe.dto.AnalyticsReport;
+import com.arsw.tictactoe.service.GameAnalytics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * Controlador REST para las estadísticas de juego en vivo
+ */
+@Controller
+public class AnalyticsController {
+    
+    @Autowired
+    private GameAnalytics analytics;
+    
+    /**
+     * REST endpoint con el total y las últimas ventanas de estadísticas
+     */
+    @GetMapping("/api/analytics")
+    @ResponseBody
+    public AnalyticsReport getReport() {
+        return analytics.getReport();
+    }
+}
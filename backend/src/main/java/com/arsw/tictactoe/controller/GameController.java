@@ -1,18 +1,40 @@
 package com.arsw.tictactoe.controller;
 
 import com.arsw.tictactoe.dto.*;
+import com.arsw.tictactoe.model.BatchResult;
 import com.arsw.tictactoe.model.Game;
+import com.arsw.tictactoe.model.GameSnapshot;
 import com.arsw.tictactoe.model.MoveResult;
 import com.arsw.tictactoe.model.Player;
+import com.arsw.tictactoe.model.PowerResult;
+import com.arsw.tictactoe.model.TimeoutAction;
+import com.arsw.tictactoe.service.AdmissionControl;
+import com.arsw.tictactoe.service.CommandSequencer;
+import com.arsw.tictactoe.service.GameBroadcaster;
+import com.arsw.tictactoe.service.GameChangeNotifier;
 import com.arsw.tictactoe.service.GameService;
+import com.arsw.tictactoe.service.GameViews;
+import com.arsw.tictactoe.service.PlayerSessions;
+import com.arsw.tictactoe.service.ServerBusyException;
+import com.arsw.tictactoe.service.StartupMetrics;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.SendTo;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.annotation.SendToUser;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import java.util.Collection;
+import java.util.stream.Collectors;
 
 /**
  * Controlador WebSocket para manejar eventos del juego en tiempo real
@@ -20,22 +42,46 @@ import java.util.Collection;
 @Controller
 public class GameController {
     
+    private static final long MAX_POLL_TIMEOUT_MS = 60000;
+    
     @Autowired
     private GameService gameService;
     
     @Autowired
     private SimpMessagingTemplate messagingTemplate;
     
+    @Autowired
+    private StartupMetrics startupMetrics;
+    
+    @Autowired
+    private GameBroadcaster broadcaster;
+    
+    @Autowired
+    private CommandSequencer sequencer;
+    
+    @Autowired
+    private GameChangeNotifier changeNotifier;
+    
+    @Autowired
+    private GameViews views;
+    
+    @Autowired
+    private AdmissionControl admission;
+    
+    @Autowired
+    private PlayerSessions playerSessions;
+    
     /**
      * Endpoint para crear un nuevo juego
      */
     @MessageMapping("/game/create")
     @SendTo("/topic/games")
     public GameMessage createGame() {
+        admission.admitGame();
         Game game = gameService.createGame();
         return new GameMessage(
             GameMessage.MessageType.GAME_UPDATE,
-            game,
+            views.spectator(game.getSnapshot()),
             "Nuevo juego creado: " + game.getGameId(),
             null
         );
@@ -43,12 +89,15 @@ public class GameController {
     
     /**
      * Endpoint para unirse a un juego
+     * La sesión queda ligada al jugador y recibe su clave en /user/queue/seats
      */
     @MessageMapping("/game/join")
-    public void joinGame(JoinGameRequest request) {
+    public void joinGame(JoinGameRequest request,
+                         @Header(SimpMessageHeaderAccessor.SESSION_ID_HEADER) String sessionId) {
         try {
-            Player player = gameService.joinGame(request.getGameId(), request.getUsername());
-            Game game = gameService.getGame(request.getGameId()).orElse(null);
+            Player player = admission.admitJoin(() -> gameService.joinGame(request.getGameId(), request.getUsername()));
+            playerSessions.seat(request.getGameId(), player.getId(), sessionId);
+            GameSnapshot game = gameService.getSnapshot(request.getGameId()).orElse(null);
             
             if (game != null) {
                 GameMessage message = new GameMessage(
@@ -59,8 +108,10 @@ public class GameController {
                 );
                 
                 // Enviar a todos los suscriptores del juego
-                messagingTemplate.convertAndSend("/topic/game/" + request.getGameId(), message);
+                broadcaster.broadcast(request.getGameId(), message);
             }
+        } catch (ServerBusyException e) {
+            throw e;  // Se responde solo a quien pidió unirse
         } catch (Exception e) {
             GameMessage errorMessage = new GameMessage(
                 GameMessage.MessageType.ERROR,
@@ -68,24 +119,54 @@ public class GameController {
                 e.getMessage(),
                 null
             );
-            messagingTemplate.convertAndSend("/topic/game/" + request.getGameId(), errorMessage);
+            broadcaster.broadcast(request.getGameId(), errorMessage);
+        }
+    }
+    
+    /**
+     * Endpoint para volver a recibir la vista de jugador en una sesión nueva
+     * (tras reconectar), presentando la clave que se recibió al unirse
+     */
+    @MessageMapping("/game/resume")
+    public void resumeGame(ResumeGameRequest request,
+                           @Header(SimpMessageHeaderAccessor.SESSION_ID_HEADER) String sessionId) {
+        if (playerSessions.resume(request.getGameId(), request.getToken(), sessionId) == null) {
+            playerSessions.sendTo(sessionId, "/queue/game/" + request.getGameId(), new GameMessage(
+                GameMessage.MessageType.ERROR,
+                null,
+                "Clave de jugador inválida",
+                null
+            ));
         }
     }
     
     /**
      * Endpoint para hacer una jugada
+     * Con secuencia, se aplica una sola vez y en orden, y se confirma a la sesión que la mandó
      */
     @MessageMapping("/game/move")
-    public void makeMove(MoveRequest request) {
+    public void makeMove(MoveRequest request, MessageHeaders headers) {
+        if (request.getSequence() > 0) {
+            sequencer.submit(request.getGameId(), request.getPlayerId(), SimpMessageHeaderAccessor.getSessionId(headers),
+                    request.getSequence(), request.getSince(), () -> move(request));
+        } else {
+            move(request);
+        }
+        recordLatency(headers);
+    }
+    
+    private CommandAck move(MoveRequest request) {
         MoveResult result = gameService.makeMove(
             request.getGameId(),
             request.getPlayerId(),
             request.getPosition()
         );
         
-        Game game = gameService.getGame(request.getGameId()).orElse(null);
+        GameSnapshot game = result.getSnapshot();
         
         if (result.isSuccess() && game != null) {
+            startupMetrics.recordAcceptedMove();
+            
             GameMessage message = new GameMessage(
                 GameMessage.MessageType.MOVE_MADE,
                 game,
@@ -93,7 +174,7 @@ public class GameController {
                 request.getPlayerId()
             );
             
-            messagingTemplate.convertAndSend("/topic/game/" + request.getGameId(), message);
+            broadcaster.broadcast(request.getGameId(), message);
             
             // Si el juego terminó, enviar mensaje especial
             if (game.getStatus() == com.arsw.tictactoe.model.GameStatus.FINISHED) {
@@ -103,7 +184,7 @@ public class GameController {
                     "Juego terminado",
                     null
                 );
-                messagingTemplate.convertAndSend("/topic/game/" + request.getGameId(), gameOverMessage);
+                broadcaster.broadcast(request.getGameId(), gameOverMessage);
             }
         } else {
             GameMessage errorMessage = new GameMessage(
@@ -112,61 +193,203 @@ public class GameController {
                 result.getMessage(),
                 request.getPlayerId()
             );
-            messagingTemplate.convertAndSend("/topic/game/" + request.getGameId(), errorMessage);
+            broadcaster.broadcast(request.getGameId(), errorMessage);
         }
+        
+        return ack(request.getGameId(), request.getPlayerId(), result.isSuccess(), result.getMessage(), game);
     }
     
     /**
      * Endpoint para usar un poder
      */
     @MessageMapping("/game/power")
-    public void usePower(PowerRequest request) {
-        boolean success = gameService.usePower(
+    public void usePower(PowerRequest request, MessageHeaders headers) {
+        if (request.getSequence() > 0) {
+            sequencer.submit(request.getGameId(), request.getPlayerId(), SimpMessageHeaderAccessor.getSessionId(headers),
+                    request.getSequence(), request.getSince(), () -> power(request));
+        } else {
+            power(request);
+        }
+        recordLatency(headers);
+    }
+    
+    private CommandAck power(PowerRequest request) {
+        PowerResult result = gameService.usePower(
             request.getGameId(),
             request.getPlayerId(),
             request.getPowerType(),
             request.getTargetPosition()
         );
         
-        if (success) {
-            Game game = gameService.getGame(request.getGameId()).orElse(null);
-            if (game != null) {
-                GameMessage message = new GameMessage(
-                    GameMessage.MessageType.GAME_UPDATE,
-                    game,
-                    "Poder usado: " + request.getPowerType(),
-                    request.getPlayerId()
-                );
-                messagingTemplate.convertAndSend("/topic/game/" + request.getGameId(), message);
-            }
+        GameSnapshot game = result.getSnapshot();
+        if (result.isSuccess() && game != null) {
+            GameMessage message = new GameMessage(
+                GameMessage.MessageType.GAME_UPDATE,
+                game,
+                result.getMessage(),
+                request.getPlayerId()
+            );
+            broadcaster.broadcast(request.getGameId(), message);
+        }
+        
+        return ack(request.getGameId(), request.getPlayerId(), result.isSuccess(), result.getMessage(), game);
+    }
+    
+    /**
+     * Endpoint para aplicar un lote de acciones (poderes con varios objetivos,
+     * varias jugadas) de forma atómica con un único broadcast
+     */
+    @MessageMapping("/game/batch")
+    public void applyBatch(BatchRequest request, MessageHeaders headers) {
+        if (request.getSequence() > 0) {
+            sequencer.submit(request.getGameId(), request.getPlayerId(), SimpMessageHeaderAccessor.getSessionId(headers),
+                    request.getSequence(), request.getSince(), () -> batch(request));
+        } else {
+            batch(request);
+        }
+        recordLatency(headers);
+    }
+    
+    private CommandAck batch(BatchRequest request) {
+        BatchResult result = gameService.applyBatch(
+            request.getGameId(),
+            request.getPlayerId(),
+            request.getActions()
+        );
+        
+        GameSnapshot game = result.getSnapshot();
+        GameMessage.MessageType type;
+        if (!result.isSuccess()) {
+            type = GameMessage.MessageType.ERROR;
+        } else if (game != null && game.getStatus() == com.arsw.tictactoe.model.GameStatus.FINISHED) {
+            type = GameMessage.MessageType.GAME_OVER;
+        } else {
+            type = GameMessage.MessageType.MOVE_MADE;
         }
+        
+        GameMessage message = new GameMessage(type, game, result.getMessage(), request.getPlayerId());
+        broadcaster.broadcast(request.getGameId(), message);
+        
+        return ack(request.getGameId(), request.getPlayerId(), result.isSuccess(), result.getMessage(), game);
+    }
+    
+    private CommandAck ack(String gameId, String playerId, boolean success, String message, GameSnapshot game) {
+        return new CommandAck(gameId, playerId, 0, success, false, message, game != null ? game.getVersion() : 0);
     }
     
     /**
-     * REST endpoint para obtener lista de juegos
+     * Latencia de un comando desde que llegó el mensaje (incluye la espera en
+     * el canal de entrada), para el control de admisión
+     */
+    private void recordLatency(MessageHeaders headers) {
+        Long receivedAt = headers.get(AdmissionControl.RECEIVED_AT_HEADER, Long.class);
+        if (receivedAt != null) {
+            admission.recordMove(System.currentTimeMillis() - receivedAt);
+        }
+    }
+    
+    /**
+     * Responde "servidor ocupado" solo a la sesión que hizo el pedido
+     */
+    @MessageExceptionHandler(ServerBusyException.class)
+    @SendToUser(destinations = "/queue/errors", broadcast = false)
+    public ServerBusy busy(ServerBusyException e) {
+        return new ServerBusy(e.getMessage(), e.getRetryAfterSeconds());
+    }
+    
+    /**
+     * REST: 503 con Retry-After
+     */
+    @ExceptionHandler(ServerBusyException.class)
+    public ResponseEntity<ServerBusy> busyRest(ServerBusyException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(new ServerBusy(e.getMessage(), e.getRetryAfterSeconds()));
+    }
+    
+    /**
+     * REST endpoint para obtener lista de juegos (vista de espectador)
      */
     @GetMapping("/api/games")
     @ResponseBody
-    public Collection<Game> getGames() {
-        return gameService.getAllGames();
+    public Collection<GameSnapshot> getGames() {
+        return gameService.getAllGames().stream()
+                .map(views::spectator)
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * REST endpoint con la cantidad y el tamaño de los juegos archivados
+     */
+    @GetMapping("/api/games/archive")
+    @ResponseBody
+    public ArchiveStats getArchiveStats() {
+        return gameService.getArchiveStats();
     }
     
     /**
-     * REST endpoint para obtener un juego específico
+     * REST endpoint con los límites del control de admisión y los rechazos
+     */
+    @GetMapping("/api/games/admission")
+    @ResponseBody
+    public AdmissionStats getAdmissionStats() {
+        return admission.getStats();
+    }
+    
+    /**
+     * REST endpoint para obtener un juego específico, en la vista del jugador
+     * dueño de la clave (sin clave válida, la de espectador)
      */
     @GetMapping("/api/games/{gameId}")
     @ResponseBody
-    public Game getGame(@PathVariable String gameId) {
-        return gameService.getGame(gameId).orElse(null);
+    public GameSnapshot getGame(@PathVariable String gameId,
+                                @RequestParam(required = false) String token) {
+        return views.viewFor(gameService.getSnapshot(gameId).orElse(null), playerSessions.playerFor(gameId, token));
+    }
+    
+    /**
+     * REST endpoint long-poll: espera (sin ocupar un hilo) a que el juego pase
+     * de la versión conocida y devuelve solo los cambios
+     */
+    @GetMapping("/api/games/{gameId}/poll")
+    @ResponseBody
+    public DeferredResult<GameDelta> pollGame(@PathVariable String gameId,
+                                              @RequestParam long version,
+                                              @RequestParam(defaultValue = "30000") long timeoutMs,
+                                              @RequestParam(required = false) String token) {
+        if (gameService.getSnapshot(gameId).isEmpty()) {
+            DeferredResult<GameDelta> missing = new DeferredResult<>();
+            missing.setResult(null);
+            return missing;
+        }
+        long timeout = Math.max(1000, Math.min(timeoutMs, MAX_POLL_TIMEOUT_MS));
+        return changeNotifier.poll(gameId, playerSessions.playerFor(gameId, token),
+                () -> gameService.getSnapshot(gameId).orElse(null), version, timeout);
     }
     
     /**
-     * REST endpoint para crear un juego
+     * REST endpoint para que un cliente que se reconecta obtenga solo los
+     * eventos posteriores a la última secuencia que recibió
+     */
+    @GetMapping("/api/games/{gameId}/events")
+    @ResponseBody
+    public EventReplay getEventsSince(@PathVariable String gameId, @RequestParam long since,
+                                      @RequestParam(required = false) String token) {
+        GameSnapshot current = gameService.getSnapshot(gameId).orElse(null);
+        return broadcaster.eventsSince(gameId, since, current, playerSessions.playerFor(gameId, token));
+    }
+    
+    /**
+     * REST endpoint para crear un juego, opcionalmente con límite por turno
+     * y/o reloj por jugador (en segundos, 0 = sin límite)
      */
     @PostMapping("/api/games")
     @ResponseBody
-    public Game createGameRest() {
-        return gameService.createGame();
+    public GameSnapshot createGameRest(@RequestParam(defaultValue = "0") long turnSeconds,
+                                       @RequestParam(defaultValue = "0") long clockSeconds,
+                                       @RequestParam(defaultValue = "SKIP_TURN") TimeoutAction onTimeout) {
+        admission.admitGame();
+        return views.spectator(gameService.createGame(turnSeconds * 1000, clockSeconds * 1000, onTimeout).getSnapshot());
     }
     
     /**
@@ -174,21 +397,23 @@ public class GameController {
      */
     @PostMapping("/api/games/{gameId}/restart")
     @ResponseBody
-    public Game restartGame(@PathVariable String gameId) {
+    public GameSnapshot restartGame(@PathVariable String gameId) {
         Game game = gameService.restartGame(gameId);
+        if (game == null) {
+            return null;
+        }
+        GameSnapshot snapshot = game.getSnapshot();
         
         // Notificar a todos los jugadores del juego
-        if (game != null) {
-            GameMessage message = new GameMessage(
-                GameMessage.MessageType.GAME_UPDATE,
-                game,
-                "El juego ha sido reiniciado",
-                null
-            );
-            messagingTemplate.convertAndSend("/topic/game/" + gameId, message);
-        }
+        GameMessage message = new GameMessage(
+            GameMessage.MessageType.GAME_UPDATE,
+            snapshot,
+            "El juego ha sido reiniciado",
+            null
+        );
+        broadcaster.broadcast(gameId, message);
         
-        return game;
+        return views.spectator(snapshot);
     }
 }
 
@@ -0,0 +1,40 @@
+package com.arsw.tictactoe.controller;
+
+import com.arsw.tictactoe.model.LeaderboardEntry;
+import com.arsw.tictactoe.service.RatingService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Controlador REST para la tabla global de ratings
+ */
+@Controller
+public class LeaderboardController {
+    
+    // Máximo de filas que se sirven en una consulta de top-K
+    private static final int MAX_LIMIT = 1000;
+    
+    @Autowired
+    private RatingService ratingService;
+    
+    /**
+     * REST endpoint para obtener los mejores jugadores
+     */
+    @GetMapping("/api/leaderboard")
+    @ResponseBody
+    public List<LeaderboardEntry> getTop(@RequestParam(defaultValue = "10") int limit) {
+        return ratingService.getTop(Math.max(0, Math.min(limit, MAX_LIMIT)));
+    }
+    
+    /**
+     * REST endpoint para obtener el rating y puesto de un jugador
+     */
+    @GetMapping("/api/leaderboard/{username}")
+    @ResponseBody
+    public LeaderboardEntry getEntry(@PathVariable String username) {
+        return ratingService.getEntry(username).orElse(null);
+    }
+}
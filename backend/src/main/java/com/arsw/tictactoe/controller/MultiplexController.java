@@ -0,0 +1,62 @@
+package com.arsw.tictactoe.controller;
+
+import com.arsw.tictactoe.dto.LeaveGamesRequest;
+import com.arsw.tictactoe.dto.SubscribeGamesRequest;
+import com.arsw.tictactoe.service.GameBroadcaster;
+import com.arsw.tictactoe.service.GameService;
+import com.arsw.tictactoe.service.PlayerSessions;
+import com.arsw.tictactoe.service.SessionMultiplexer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.stereotype.Controller;
+
+/**
+ * Controlador del destino multiplexado: una sesión sigue o deja muchos
+ * juegos con un solo comando y recibe sus eventos en /user/queue/games
+ */
+@Controller
+public class MultiplexController {
+    
+    @Autowired
+    private GameService gameService;
+    
+    @Autowired
+    private GameBroadcaster broadcaster;
+    
+    @Autowired
+    private SessionMultiplexer multiplexer;
+    
+    @Autowired
+    private PlayerSessions playerSessions;
+    
+    /**
+     * Sigue varios juegos; el estado actual de cada uno llega en el próximo
+     * frame, en la vista del jugador dueño de la clave (sin clave, la de espectador)
+     */
+    @MessageMapping("/games/subscribe")
+    public void subscribe(SubscribeGamesRequest request,
+                          @Header(SimpMessageHeaderAccessor.SESSION_ID_HEADER) String sessionId) {
+        if (request.getGames() == null) {
+            return;
+        }
+        request.getGames().forEach((gameId, token) -> {
+            if (gameService.getSnapshot(gameId).isEmpty()) {
+                multiplexer.reject(sessionId, gameId, "Juego no encontrado");
+                return;
+            }
+            broadcaster.attach(sessionId, gameId, playerSessions.playerFor(gameId, token),
+                    () -> gameService.getSnapshot(gameId).orElse(null));
+        });
+    }
+    
+    /**
+     * Deja de seguir varios juegos
+     */
+    @MessageMapping("/games/leave")
+    public void leave(LeaveGamesRequest request,
+                      @Header(SimpMessageHeaderAccessor.SESSION_ID_HEADER) String sessionId) {
+        multiplexer.leave(sessionId, request.getGameIds());
+    }
+}
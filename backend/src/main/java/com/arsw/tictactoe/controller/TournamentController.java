@@ -0,0 +1,74 @@
+package com.arsw.tictactoe.controller;
+
+import com.arsw.tictactoe.dto.CreateTournamentRequest;
+import com.arsw.tictactoe.model.Standing;
+import com.arsw.tictactoe.model.Tournament;
+import com.arsw.tictactoe.service.TournamentService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Controlador REST para crear torneos y consultar sus posiciones
+ */
+@Controller
+public class TournamentController {
+    
+    @Autowired
+    private TournamentService tournamentService;
+    
+    /**
+     * REST endpoint para crear un torneo
+     */
+    @PostMapping("/api/tournaments")
+    @ResponseBody
+    public Tournament createTournament(@RequestBody CreateTournamentRequest request) {
+        return tournamentService.createTournament(
+            request.getName(),
+            request.getFormat(),
+            request.getUsernames(),
+            request.getRounds()
+        );
+    }
+    
+    /**
+     * REST endpoint para iniciar un torneo (crea y sienta la primera ronda)
+     */
+    @PostMapping("/api/tournaments/{tournamentId}/start")
+    @ResponseBody
+    public Tournament startTournament(@PathVariable String tournamentId) {
+        return tournamentService.startTournament(tournamentId);
+    }
+    
+    /**
+     * REST endpoint para obtener lista de torneos
+     */
+    @GetMapping("/api/tournaments")
+    @ResponseBody
+    public Collection<Tournament> getTournaments() {
+        return tournamentService.getAllTournaments();
+    }
+    
+    /**
+     * REST endpoint para obtener un torneo con las partidas de su ronda actual
+     */
+    @GetMapping("/api/tournaments/{tournamentId}")
+    @ResponseBody
+    public Tournament getTournament(@PathVariable String tournamentId) {
+        return tournamentService.getTournament(tournamentId).orElse(null);
+    }
+    
+    /**
+     * REST endpoint para obtener la tabla de posiciones de un torneo
+     */
+    @GetMapping("/api/tournaments/{tournamentId}/standings")
+    @ResponseBody
+    public List<Standing> getStandings(@PathVariable String tournamentId) {
+        return tournamentService.getTournament(tournamentId)
+                .map(Tournament::getStandings)
+                .orElse(null);
+    }
+}
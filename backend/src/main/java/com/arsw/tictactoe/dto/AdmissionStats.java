@@ -0,0 +1,24 @@
+package com.arsw.tictactoe.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Estado del control de admisión
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AdmissionStats {
+    private int activeGames;
+    private int gameLimit;           // Límite adaptativo actual (<= maxGames)
+    private int maxGames;
+    private int sessions;
+    private int maxSessions;
+    private int queuedJoins;         // Uniones esperando turno
+    private double moveLatencyMs;    // Latencia promedio de jugadas en el último intervalo
+    private long rejectedGames;
+    private long rejectedJoins;
+    private long rejectedSessions;
+}
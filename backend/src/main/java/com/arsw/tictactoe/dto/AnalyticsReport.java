@@ -0,0 +1,21 @@
+package com.arsw.tictactoe.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Estadísticas en vivo: total desde el arranque y últimas ventanas
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalyticsReport {
+    private long generatedAt;               // Momento en que se armó (epoch ms)
+    private long windowMs;                  // Duración de cada ventana
+    private long droppedEvents;             // Eventos descartados por cola llena
+    private AnalyticsWindow total;
+    private List<AnalyticsWindow> windows;  // Ventanas con actividad, la más reciente primero
+}
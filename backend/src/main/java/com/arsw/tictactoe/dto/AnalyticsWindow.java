@@ -0,0 +1,33 @@
+package com.arsw.tictactoe.dto;
+
+import com.arsw.tictactoe.model.CellEffect;
+import com.arsw.tictactoe.model.PowerType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estadísticas de juego de una ventana de tiempo (o del total desde el arranque)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalyticsWindow {
+    private long start;                          // Inicio (epoch ms)
+    private long end;                            // Fin exclusivo (epoch ms)
+    private long moves;
+    private double trapHitRate;                  // Jugadas que cayeron en trampa / jugadas
+    private Map<CellEffect, Long> effects;       // Jugadas por efecto de celda
+    private Map<PowerType, Long> powersGained;
+    private Map<PowerType, Long> powersUsed;
+    private long gamesFinished;
+    private long draws;
+    private List<Double> winRateBySeat;          // Victorias / partidas con ese asiento ocupado
+    private Map<String, Double> winRateBySymbol;
+    private double averageTurnsToWin;
+    private long distinctPlayers;                // Estimado (HyperLogLog)
+    private long distinctGames;                  // Estimado (HyperLogLog)
+}
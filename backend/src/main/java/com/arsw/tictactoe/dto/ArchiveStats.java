@@ -0,0 +1,18 @@
+package com.arsw.tictactoe.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Estado del archivo de partidas terminadas
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchiveStats {
+    private int liveGames;          // Juegos en memoria como objetos
+    private int archivedGames;      // Juegos terminados archivados
+    private long archivedBytes;     // Bytes totales de los archivados
+    private long bytesPerArchivedGame;
+}
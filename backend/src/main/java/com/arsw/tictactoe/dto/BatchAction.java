@@ -0,0 +1,26 @@
+package com.arsw.tictactoe.dto;
+
+import com.arsw.tictactoe.model.PowerType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Acción individual dentro de un lote de comandos
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchAction {
+    private ActionType type;
+    private int position;                  // Posición de la jugada (MOVE)
+    private PowerType powerType;           // Poder a usar (POWER)
+    private List<Integer> targetPositions; // Posiciones objetivo del poder (si aplica)
+    
+    public enum ActionType {
+        MOVE,   // Colocar una pieza
+        POWER   // Usar un poder
+    }
+}
@@ -0,0 +1,21 @@
+package com.arsw.tictactoe.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request para aplicar varias acciones de forma atómica
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchRequest {
+    private String gameId;
+    private String playerId;
+    private List<BatchAction> actions;
+    private long sequence;       // Secuencia del comando por jugador (0 = sin secuencia)
+    private long since;          // Primera secuencia sin confirmar del jugador (0 = desde 1)
+}
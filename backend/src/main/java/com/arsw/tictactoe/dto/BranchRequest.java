@@ -0,0 +1,19 @@
+package com.arsw.tictactoe.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request para abrir una rama de análisis: acciones a aplicar sobre un nodo
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BranchRequest {
+    private String from;                 // Nodo de partida (la raíz es "0")
+    private String playerId;             // Quién hace las acciones (null = el jugador del turno)
+    private List<BatchAction> actions;   // Vacío: la misma posición en una rama nueva
+}
@@ -0,0 +1,26 @@
+package com.arsw.tictactoe.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Confirmación de un comando numerado, enviada solo a la sesión que lo
+ * mandó por /user/queue/commands, en orden de secuencia
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CommandAck {
+    private String gameId;
+    private String playerId;
+    private long sequence;
+    private boolean success;
+    private boolean duplicate;   // Ya se había procesado: no se volvió a aplicar
+    private String message;
+    private long version;        // Versión del juego después del comando
+    
+    public CommandAck asDuplicate() {
+        return new CommandAck(gameId, playerId, sequence, success, true, message, version);
+    }
+}
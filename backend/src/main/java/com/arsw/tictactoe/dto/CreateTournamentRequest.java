@@ -0,0 +1,21 @@
+package com.arsw.tictactoe.dto;
+
+import com.arsw.tictactoe.model.TournamentFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request para crear un torneo
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreateTournamentRequest {
+    private String name;
+    private TournamentFormat format;
+    private List<String> usernames;  // Participantes inscritos
+    private Integer rounds;          // Rondas del suizo (opcional)
+}
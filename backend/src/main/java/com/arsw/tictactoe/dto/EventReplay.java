@@ -0,0 +1,21 @@
+package com.arsw.tictactoe.dto;
+
+import com.arsw.tictactoe.model.GameSnapshot;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Respuesta a "eventos desde N" para un cliente que se reconecta
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventReplay {
+    private String gameId;
+    private long latestSequence;        // Última secuencia emitida para el juego
+    private List<GameMessage> events;   // Eventos perdidos, en orden
+    private GameSnapshot snapshot;      // Estado completo solo si el buffer ya rotó
+}
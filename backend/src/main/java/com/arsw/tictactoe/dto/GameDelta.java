@@ -0,0 +1,37 @@
+package com.arsw.tictactoe.dto;
+
+import com.arsw.tictactoe.model.CellSnapshot;
+import com.arsw.tictactoe.model.GameSnapshot;
+import com.arsw.tictactoe.model.GameStatus;
+import com.arsw.tictactoe.model.PlayerSnapshot;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Cambios de un juego entre la versión que conoce el cliente y la actual
+ *
+ * Si la versión del cliente ya no está en el historial reciente (o el juego
+ * se reinició) viene el estado completo en {@code snapshot}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GameDelta {
+    private String gameId;
+    private long fromVersion;
+    private long version;
+    private GameSnapshot snapshot;          // Estado completo (solo si no hay delta)
+    private List<CellSnapshot> cells;       // Celdas que cambiaron
+    private List<PlayerSnapshot> players;   // Todos los jugadores si alguno cambió, si no null
+    private int currentPlayerIndex;
+    private GameStatus status;
+    private String winner;
+    private int turnCount;
+    private long turnDeadline;
+    private LocalDateTime updatedAt;
+    private List<String> log;               // Entradas nuevas del log
+}
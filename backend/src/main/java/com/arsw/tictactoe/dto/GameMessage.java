@@ -1,6 +1,6 @@
 package com.arsw.tictactoe.dto;
 
-import com.arsw.tictactoe.model.Game;
+import com.arsw.tictactoe.model.GameSnapshot;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -13,9 +13,28 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class GameMessage {
     private MessageType type;
-    private Game game;
+    private GameSnapshot game;
     private String message;
     private String playerId;
+    private long sequence;   // Posición en el flujo de eventos del juego (0 = sin secuencia)
+    
+    public GameMessage(MessageType type, GameSnapshot game, String message, String playerId) {
+        this(type, game, message, playerId, 0);
+    }
+    
+    /**
+     * Copia del mensaje con su número de secuencia asignado
+     */
+    public GameMessage withSequence(long sequence) {
+        return new GameMessage(type, game, message, playerId, sequence);
+    }
+    
+    /**
+     * Copia del mensaje con otra vista del juego (la de un destinatario)
+     */
+    public GameMessage withGame(GameSnapshot view) {
+        return new GameMessage(type, view, message, playerId, sequence);
+    }
     
     public enum MessageType {
         GAME_UPDATE,      // Actualización del juego
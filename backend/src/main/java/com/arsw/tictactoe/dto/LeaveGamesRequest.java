@@ -0,0 +1,17 @@
+package com.arsw.tictactoe.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request para dejar de seguir varios juegos del destino multiplexado
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaveGamesRequest {
+    private List<String> gameIds;
+}
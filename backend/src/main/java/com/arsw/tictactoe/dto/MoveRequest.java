@@ -14,5 +14,7 @@ public class MoveRequest {
     private String gameId;
     private String playerId;
     private int position;
+    private long sequence;       // Secuencia del comando por jugador (0 = sin secuencia)
+    private long since;          // Primera secuencia sin confirmar del jugador (0 = desde 1)
 }
 
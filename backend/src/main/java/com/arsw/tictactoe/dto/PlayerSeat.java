@@ -0,0 +1,19 @@
+package com.arsw.tictactoe.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Asiento de un jugador recién unido, enviado solo a su sesión por
+ * /user/queue/seats: la clave reemplaza al playerId (que es público) para
+ * pedir la vista del jugador
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlayerSeat {
+    private String gameId;
+    private String playerId;
+    private String token;
+}
@@ -16,5 +16,7 @@ public class PowerRequest {
     private String playerId;
     private PowerType powerType;
     private int targetPosition;  // Posición objetivo (si aplica)
+    private long sequence;       // Secuencia del comando por jugador (0 = sin secuencia)
+    private long since;          // Primera secuencia sin confirmar del jugador (0 = desde 1)
 }
 
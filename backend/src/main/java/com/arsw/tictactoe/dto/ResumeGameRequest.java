@@ -0,0 +1,16 @@
+package com.arsw.tictactoe.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Request para volver a recibir la vista de jugador en una sesión nueva (tras reconectar)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumeGameRequest {
+    private String gameId;
+    private String token;
+}
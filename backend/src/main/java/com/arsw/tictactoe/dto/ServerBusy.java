@@ -0,0 +1,16 @@
+package com.arsw.tictactoe.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Respuesta "servidor ocupado, reintentar después"
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ServerBusy {
+    private String message;
+    private long retryAfterSeconds;
+}
@@ -0,0 +1,17 @@
+package com.arsw.tictactoe.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Request para seguir varios juegos por el destino multiplexado de la sesión
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubscribeGamesRequest {
+    private Map<String, String> games;   // gameId → clave del jugador (null = espectador)
+}
@@ -0,0 +1,12 @@
+package com.arsw.tictactoe.event;
+
+import com.arsw.tictactoe.model.GameSnapshot;
+import lombok.Value;
+
+/**
+ * Evento publicado cuando una partida pasa a FINISHED
+ */
+@Value
+public class GameFinishedEvent {
+    GameSnapshot game;   // Estado final publicado
+}
@@ -0,0 +1,43 @@
+package com.arsw.tictactoe.event;
+
+import com.arsw.tictactoe.model.CellEffect;
+import com.arsw.tictactoe.model.GameSnapshot;
+import com.arsw.tictactoe.model.MoveResult;
+import com.arsw.tictactoe.model.PowerType;
+import lombok.Value;
+
+/**
+ * Hecho de juego para las estadísticas en vivo (jugada, poder usado o fin de partida)
+ */
+@Value
+public class GameplayEvent {
+    
+    public enum Type {
+        MOVE,           // Jugada exitosa (efecto de celda y poder ganado)
+        POWER_USED,     // Poder usado con éxito
+        GAME_FINISHED   // Partida terminada (estado final en game)
+    }
+    
+    Type type;
+    long timestamp;
+    String gameId;
+    String playerId;
+    CellEffect cellEffect;
+    PowerType powerType;   // Poder ganado (MOVE) o usado (POWER_USED)
+    GameSnapshot game;
+    
+    public static GameplayEvent move(String gameId, String playerId, MoveResult result) {
+        return new GameplayEvent(Type.MOVE, System.currentTimeMillis(), gameId, playerId,
+                result.getCellEffect(), result.getGainedPower(), null);
+    }
+    
+    public static GameplayEvent powerUsed(String gameId, String playerId, PowerType powerType) {
+        return new GameplayEvent(Type.POWER_USED, System.currentTimeMillis(), gameId, playerId,
+                null, powerType, null);
+    }
+    
+    public static GameplayEvent finished(GameSnapshot game) {
+        return new GameplayEvent(Type.GAME_FINISHED, System.currentTimeMillis(), game.getGameId(), null,
+                null, null, game);
+    }
+}
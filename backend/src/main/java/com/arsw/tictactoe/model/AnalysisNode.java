@@ -0,0 +1,59 @@
+package com.arsw.tictactoe.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Rama de un análisis "qué pasaría si": un estado inmutable del juego y las
+ * acciones que llevaron a él desde su padre
+ *
+ * El estado de cada nodo comparte con el de su padre las celdas, jugadores y
+ * log que no cambiaron (ver {@link GameSnapshot}), así que miles de ramas
+ * ocupan poco más que sus diferencias y abrir una rama sin acciones no copia nada.
+ */
+@Value
+public class AnalysisNode {
+    String id;
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    AnalysisNode parent;
+    String label;          // Acciones desde el padre (null en la raíz)
+    int depth;
+    GameSnapshot state;
+    
+    public static AnalysisNode root(String id, GameSnapshot state) {
+        return new AnalysisNode(id, null, null, 0, state);
+    }
+    
+    /**
+     * Rama hija que llega a otro estado
+     */
+    public AnalysisNode child(String childId, String childLabel, GameSnapshot childState) {
+        return new AnalysisNode(childId, this, childLabel, depth + 1, childState);
+    }
+    
+    public String getParentId() {
+        return parent == null ? null : parent.id;
+    }
+    
+    /**
+     * Acciones desde la raíz hasta este nodo
+     */
+    public List<String> getLine() {
+        List<String> line = new ArrayList<>(depth);
+        for (AnalysisNode node = this; node.parent != null; node = node.parent) {
+            if (node.label != null) {
+                line.add(node.label);
+            }
+        }
+        Collections.reverse(line);
+        return line;
+    }
+}
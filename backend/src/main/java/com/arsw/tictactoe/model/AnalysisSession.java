@@ -0,0 +1,85 @@
+package com.arsw.tictactoe.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sesión de análisis sobre una versión de un juego: el árbol de ramas que
+ * se exploraron a partir de ella, sin relación con el juego en curso
+ */
+@Getter
+public class AnalysisSession {
+    
+    private final String sessionId;
+    private final String gameId;
+    private final AnalysisNode root;
+    private final LocalDateTime createdAt;
+    
+    @Getter(AccessLevel.NONE)
+    private final Map<String, AnalysisNode> nodes = new ConcurrentHashMap<>();
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong nextNodeId = new AtomicLong(1);
+    @Getter(AccessLevel.NONE)
+    private final AtomicInteger reserved = new AtomicInteger(1);   // Nodos guardados o en camino (la raíz cuenta)
+    @JsonIgnore
+    private volatile long lastUsedAt;   // Epoch ms (para vencer sesiones abandonadas)
+    
+    public AnalysisSession(String sessionId, String gameId, GameSnapshot state) {
+        this.sessionId = sessionId;
+        this.gameId = gameId;
+        this.root = AnalysisNode.root("0", state);
+        this.createdAt = LocalDateTime.now();
+        this.nodes.put(root.getId(), root);
+        touch();
+    }
+    
+    public AnalysisNode getNode(String nodeId) {
+        return nodeId == null ? null : nodes.get(nodeId);
+    }
+    
+    /**
+     * Guarda una rama nueva colgando de parent
+     */
+    public AnalysisNode addChild(AnalysisNode parent, String label, GameSnapshot state) {
+        AnalysisNode child = parent.child(String.valueOf(nextNodeId.getAndIncrement()), label, state);
+        nodes.put(child.getId(), child);
+        return child;
+    }
+    
+    public int getNodeCount() {
+        return nodes.size();
+    }
+    
+    /**
+     * Reserva lugar para count ramas sin pasar de max; false si no entran.
+     * Pedidos simultáneos no pueden pasar el límite entre ambos
+     */
+    public boolean tryReserve(int count, int max) {
+        int current;
+        do {
+            current = reserved.get();
+            if (current + count > max) {
+                return false;
+            }
+        } while (!reserved.compareAndSet(current, current + count));
+        return true;
+    }
+    
+    /**
+     * Devuelve lugares reservados que no terminaron en una rama
+     */
+    public void release(int count) {
+        reserved.addAndGet(-count);
+    }
+    
+    public void touch() {
+        lastUsedAt = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,200 @@
+package com.arsw.tictactoe.model;
+
+import java.io.*;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Partida terminada guardada en forma compacta
+ *
+ * El último snapshot se empaqueta campo a campo (ordinales en un byte, fechas
+ * como epoch, textos UTF-8) y se comprime con Deflate. Solo se conserva el
+ * arreglo de bytes; el snapshot se reconstruye cuando alguien lo pide.
+ */
+public final class ArchivedGame {
+    
+    private static final byte FORMAT = 1;
+    
+    private final String gameId;
+    private final byte[] data;
+    
+    private ArchivedGame(String gameId, byte[] data) {
+        this.gameId = gameId;
+        this.data = data;
+    }
+    
+    public String getGameId() {
+        return gameId;
+    }
+    
+    /**
+     * Tamaño comprimido en bytes
+     */
+    public int size() {
+        return data.length;
+    }
+    
+    /**
+     * Empaqueta un snapshot
+     */
+    public static ArchivedGame of(GameSnapshot game) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, deflater))) {
+            out.writeByte(FORMAT);
+            out.writeLong(game.getVersion());
+            out.writeUTF(game.getGameId());
+            
+            out.writeByte(game.getPlayers().size());
+            for (PlayerSnapshot p : game.getPlayers()) {
+                out.writeUTF(p.getId());
+                out.writeUTF(p.getUsername());
+                out.writeUTF(p.getSymbol());
+                out.writeInt(p.getScore());
+                out.writeByte(p.getPowers().size());
+                for (PowerType power : p.getPowers()) {
+                    out.writeByte(power.ordinal());
+                }
+                out.writeBoolean(p.isActive());
+                out.writeLong(p.getRemainingTimeMs());
+            }
+            
+            out.writeByte(game.getBoard().size());
+            for (CellSnapshot c : game.getBoard()) {
+                writeNullable(out, c.getValue());
+                out.writeByte(c.getType().ordinal());
+                out.writeByte((c.isRevealed() ? 1 : 0) | (c.isBlocked() ? 2 : 0));
+                out.writeInt(c.getBlockedUntilTurn());
+            }
+            
+            out.writeInt(game.getCurrentPlayerIndex());
+            out.writeByte(game.getStatus().ordinal());
+            writeNullable(out, game.getWinner());
+            writeTime(out, game.getCreatedAt());
+            writeTime(out, game.getUpdatedAt());
+            out.writeInt(game.getTurnCount());
+            out.writeBoolean(game.isSpecialCellsEnabled());
+            
+            out.writeInt(game.getGameLog().size());
+            for (String line : game.getGameLog()) {
+                out.writeUTF(line);
+            }
+            
+            out.writeLong(game.getTurnTimeLimitMs());
+            out.writeLong(game.getClockTimeMs());
+            out.writeByte(game.getTimeoutAction().ordinal());
+            out.writeLong(game.getTurnStartedAt());
+            out.writeLong(game.getTurnDeadline());
+            
+            out.writeShort(game.getPendingEffects().size());
+            for (TimedEffect effect : game.getPendingEffects()) {
+                out.writeInt(effect.getDueTurn());
+                out.writeByte(effect.getType().ordinal());
+                out.writeByte(effect.getPosition());
+                writeNullable(out, effect.getValue());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deflater.end();
+        }
+        return new ArchivedGame(game.getGameId(), bytes.toByteArray());
+    }
+    
+    /**
+     * Reconstruye el snapshot archivado
+     */
+    public GameSnapshot toSnapshot() {
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(data)))) {
+            if (in.readByte() != FORMAT) {
+                throw new IllegalStateException("Formato de archivo desconocido");
+            }
+            long version = in.readLong();
+            String gameId = in.readUTF();
+            
+            int playerCount = in.readByte();
+            List<PlayerSnapshot> players = new ArrayList<>(playerCount);
+            for (int i = 0; i < playerCount; i++) {
+                String id = in.readUTF();
+                String username = in.readUTF();
+                String symbol = in.readUTF();
+                int score = in.readInt();
+                int powerCount = in.readByte();
+                List<PowerType> powers = new ArrayList<>(powerCount);
+                for (int j = 0; j < powerCount; j++) {
+                    powers.add(PowerType.values()[in.readByte()]);
+                }
+                players.add(new PlayerSnapshot(id, username, symbol, score, List.copyOf(powers),
+                        in.readBoolean(), in.readLong()));
+            }
+            
+            int cellCount = in.readByte();
+            List<CellSnapshot> board = new ArrayList<>(cellCount);
+            for (int i = 0; i < cellCount; i++) {
+                String value = readNullable(in);
+                CellType type = CellType.values()[in.readByte()];
+                int flags = in.readByte();
+                board.add(new CellSnapshot(i, value, type, (flags & 1) != 0, (flags & 2) != 0, in.readInt()));
+            }
+            
+            int currentPlayerIndex = in.readInt();
+            GameStatus status = GameStatus.values()[in.readByte()];
+            String winner = readNullable(in);
+            LocalDateTime createdAt = readTime(in);
+            LocalDateTime updatedAt = readTime(in);
+            int turnCount = in.readInt();
+            boolean specialCellsEnabled = in.readBoolean();
+            
+            int logSize = in.readInt();
+            List<String> log = new ArrayList<>(logSize);
+            for (int i = 0; i < logSize; i++) {
+                log.add(in.readUTF());
+            }
+            
+            long turnTimeLimitMs = in.readLong();
+            long clockTimeMs = in.readLong();
+            TimeoutAction timeoutAction = TimeoutAction.values()[in.readByte()];
+            long turnStartedAt = in.readLong();
+            long turnDeadline = in.readLong();
+            
+            int effectCount = in.readShort();
+            List<TimedEffect> effects = new ArrayList<>(effectCount);
+            for (int i = 0; i < effectCount; i++) {
+                effects.add(new TimedEffect(in.readInt(), TimedEffectType.values()[in.readByte()],
+                        in.readByte(), readNullable(in)));
+            }
+            
+            return new GameSnapshot(version, gameId, List.copyOf(players), List.copyOf(board),
+                    currentPlayerIndex, status, winner, createdAt, updatedAt, turnCount,
+                    specialCellsEnabled, List.copyOf(log), turnTimeLimitMs, clockTimeMs, timeoutAction,
+                    turnStartedAt, turnDeadline, List.copyOf(effects));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+    
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+    
+    private static void writeTime(DataOutputStream out, LocalDateTime time) throws IOException {
+        out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(time.getNano());
+    }
+    
+    private static LocalDateTime readTime(DataInputStream in) throws IOException {
+        return LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,18 @@
+package com.arsw.tictactoe.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resultado de aplicar un lote de acciones
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchResult {
+    private boolean success;
+    private String message;
+    private int failedAction = -1;   // Índice de la acción que falló (-1 si ninguna)
+    private GameSnapshot snapshot;   // Estado publicado tras el lote
+}
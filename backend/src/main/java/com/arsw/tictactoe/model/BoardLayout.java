@@ -0,0 +1,106 @@
+package com.arsw.tictactoe.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Distribución de las celdas especiales de un tablero, empaquetada en un int
+ *
+ * Cada una de las 9 posiciones usa 3 bits con el ordinal de su {@link CellType}
+ * (0 = normal). Las 8 simetrías del cuadrado (4 rotaciones, con y sin reflejo)
+ * son permutaciones fijas de las posiciones: aplicadas a una distribución al
+ * azar dan otras igual de probables sin volver a sortear.
+ */
+public final class BoardLayout {
+    
+    public static final int EMPTY = 0;          // Todas las celdas normales
+    public static final int SYMMETRIES = 8;
+    
+    private static final int CELLS = 9;
+    private static final int BITS = 3;
+    private static final int CELL_MASK = (1 << BITS) - 1;
+    private static final int MIN_SPECIAL_CELLS = 3;
+    private static final int MAX_SPECIAL_CELLS = 5;
+    
+    private static final CellType[] TYPES = CellType.values();
+    private static final CellType[] SPECIAL_TYPES = {CellType.TRAP, CellType.POWER, CellType.FAKE,
+                                                     CellType.DOUBLE_POINTS, CellType.REVERSE};
+    
+    // PERMUTATIONS[s][i]: posición a la que va la celda i con la simetría s
+    private static final int[][] PERMUTATIONS = permutations();
+    
+    private BoardLayout() {
+    }
+    
+    /**
+     * Sortea una distribución: entre 3 y 5 celdas especiales en posiciones y de tipos al azar
+     */
+    public static int random(Random random) {
+        int count = MIN_SPECIAL_CELLS + random.nextInt(MAX_SPECIAL_CELLS - MIN_SPECIAL_CELLS + 1);
+        int layout = EMPTY;
+        int placed = 0;
+        while (placed < count) {
+            int position = random.nextInt(CELLS);
+            if (typeOrdinal(layout, position) == 0) {
+                CellType type = SPECIAL_TYPES[random.nextInt(SPECIAL_TYPES.length)];
+                layout |= type.ordinal() << (position * BITS);
+                placed++;
+            }
+        }
+        return layout;
+    }
+    
+    /**
+     * La misma distribución rotada y/o reflejada (simetría 0 = identidad)
+     */
+    public static int transform(int layout, int symmetry) {
+        int[] permutation = PERMUTATIONS[symmetry];
+        int result = EMPTY;
+        for (int i = 0; i < CELLS; i++) {
+            result |= typeOrdinal(layout, i) << (permutation[i] * BITS);
+        }
+        return result;
+    }
+    
+    public static CellType typeAt(int layout, int position) {
+        return TYPES[typeOrdinal(layout, position)];
+    }
+    
+    /**
+     * Celdas del tablero con la distribución aplicada (las especiales sin revelar)
+     */
+    public static List<Cell> toCells(int layout) {
+        List<Cell> cells = new ArrayList<>(CELLS);
+        for (int i = 0; i < CELLS; i++) {
+            Cell cell = new Cell(i);
+            cell.setType(typeAt(layout, i));
+            cells.add(cell);
+        }
+        return cells;
+    }
+    
+    private static int typeOrdinal(int layout, int position) {
+        return (layout >>> (position * BITS)) & CELL_MASK;
+    }
+    
+    private static int[][] permutations() {
+        int[][] result = new int[SYMMETRIES][CELLS];
+        for (int s = 0; s < SYMMETRIES; s++) {
+            for (int i = 0; i < CELLS; i++) {
+                int row = i / 3;
+                int col = i % 3;
+                for (int turn = 0; turn < s % 4; turn++) {
+                    int rotated = 2 - row;   // 90° en sentido horario: (f, c) → (c, 2 - f)
+                    row = col;
+                    col = rotated;
+                }
+                if (s >= 4) {
+                    col = 2 - col;
+                }
+                result[s][i] = row * 3 + col;
+            }
+        }
+        return result;
+    }
+}
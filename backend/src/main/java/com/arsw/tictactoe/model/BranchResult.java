@@ -0,0 +1,18 @@
+package com.arsw.tictactoe.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resultado de abrir una rama de análisis
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BranchResult {
+    private boolean success;
+    private String message;
+    private int failedAction = -1;   // Índice de la acción que falló (-1 si ninguna)
+    private AnalysisNode node;       // Rama creada (null si falló)
+}
@@ -16,7 +16,7 @@ public class Cell {
     private CellType type;       // Tipo de celda (NORMAL, TRAP, POWER, FAKE)
     private boolean isRevealed;  // Si el tipo está revelado
     private boolean isBlocked;   // Si está bloqueada temporalmente
-    private int blockedTurns;    // Turnos restantes de bloqueo
+    private int blockedUntilTurn; // Turno en que termina el bloqueo
     
     public Cell(int position) {
         this.position = position;
@@ -24,7 +24,7 @@ public class Cell {
         this.type = CellType.NORMAL;
         this.isRevealed = false;
         this.isBlocked = false;
-        this.blockedTurns = 0;
+        this.blockedUntilTurn = 0;
     }
     
     /**
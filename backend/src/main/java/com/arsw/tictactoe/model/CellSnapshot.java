@@ -0,0 +1,75 @@
+package com.arsw.tictactoe.model;
+
+import lombok.Value;
+
+import java.util.Objects;
+
+/**
+ * Vista inmutable de una celda en una versión concreta del juego
+ */
+@Value
+public class CellSnapshot {
+    int position;
+    String value;
+    CellType type;
+    boolean isRevealed;
+    boolean isBlocked;
+    int blockedUntilTurn;
+    
+    // Celdas sin ficha, sin revelar y sin bloqueo (todo tablero nuevo): una instancia por posición y tipo
+    private static final CellSnapshot[][] FRESH = new CellSnapshot[9][CellType.values().length];
+    
+    static {
+        for (int position = 0; position < FRESH.length; position++) {
+            for (CellType type : CellType.values()) {
+                FRESH[position][type.ordinal()] = new CellSnapshot(position, null, type, false, false, 0);
+            }
+        }
+    }
+    
+    public static CellSnapshot of(Cell cell) {
+        if (cell.getValue() == null && !cell.isRevealed() && !cell.isBlocked() && cell.getBlockedUntilTurn() == 0
+                && cell.getType() != null && cell.getPosition() >= 0 && cell.getPosition() < FRESH.length) {
+            return FRESH[cell.getPosition()][cell.getType().ordinal()];
+        }
+        return new CellSnapshot(cell.getPosition(), cell.getValue(), cell.getType(),
+                cell.isRevealed(), cell.isBlocked(), cell.getBlockedUntilTurn());
+    }
+    
+    /**
+     * Indica si la celda mutable sigue teniendo el mismo estado que esta vista
+     */
+    public boolean matches(Cell cell) {
+        return position == cell.getPosition()
+                && Objects.equals(value, cell.getValue())
+                && type == cell.getType()
+                && isRevealed == cell.isRevealed()
+                && isBlocked == cell.isBlocked()
+                && blockedUntilTurn == cell.getBlockedUntilTurn();
+    }
+    
+    /**
+     * La misma celda sin su tipo si aún no fue revelada (lo que ve un jugador)
+     */
+    public CellSnapshot hidden() {
+        if (isRevealed || type == null) {
+            return this;
+        }
+        return new CellSnapshot(position, value, null, false, isBlocked, blockedUntilTurn);
+    }
+    
+    /**
+     * Crea una celda mutable con el estado de esta vista
+     */
+    public Cell toCell() {
+        return new Cell(position, value, type, isRevealed, isBlocked, blockedUntilTurn);
+    }
+    
+    public boolean isOccupied() {
+        return value != null && !value.isEmpty();
+    }
+    
+    public boolean isPlayable() {
+        return !isOccupied() && !isBlocked;
+    }
+}
@@ -0,0 +1,86 @@
+package com.arsw.tictactoe.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongFunction;
+
+/**
+ * Buffer circular acotado de los últimos eventos de una partida, numerados
+ * con una secuencia creciente para que un cliente pida "lo que me perdí"
+ *
+ * No es seguro para hilos: el llamador lo bloquea al agregar y al leer.
+ */
+public class EventBuffer<T> {
+    
+    private static final Object[] NONE = new Object[0];
+    
+    private final Object[] events;
+    private long lastSequence;   // Secuencia del último evento agregado (0 = ninguno)
+    private long firstRetained;  // Secuencias anteriores ya no se guardan
+    
+    public EventBuffer(int capacity) {
+        this(capacity, 0);
+    }
+    
+    /**
+     * Buffer vacío cuya numeración sigue después de lastSequence
+     */
+    public EventBuffer(int capacity, long lastSequence) {
+        this.events = capacity == 0 ? NONE : new Object[capacity];
+        this.lastSequence = lastSequence;
+        this.firstRetained = lastSequence + 1;
+    }
+    
+    /**
+     * Marca sin eventos que solo recuerda la última secuencia (juegos archivados);
+     * responde a {@link #since} como un buffer vacío y no admite {@link #append}
+     */
+    public static <T> EventBuffer<T> marker(long lastSequence) {
+        return new EventBuffer<>(0, lastSequence);
+    }
+    
+    public boolean isMarker() {
+        return events.length == 0;
+    }
+    
+    /**
+     * Asigna la siguiente secuencia, construye el evento con ella y lo guarda
+     */
+    public T append(LongFunction<T> factory) {
+        if (isMarker()) {
+            throw new IllegalStateException("Una marca de secuencia no guarda eventos");
+        }
+        long sequence = ++lastSequence;
+        T event = factory.apply(sequence);
+        events[(int) (sequence % events.length)] = event;
+        return event;
+    }
+    
+    public long getLastSequence() {
+        return lastSequence;
+    }
+    
+    /**
+     * Eventos que siguen guardados, del más viejo al más nuevo
+     */
+    public List<T> retained() {
+        return since(Math.max(firstRetained, lastSequence - events.length + 1) - 1);
+    }
+    
+    /**
+     * Eventos con secuencia mayor a la dada, o null si algunos ya fueron
+     * sobrescritos (o la secuencia no corresponde a este buffer)
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> since(long sequence) {
+        long oldest = Math.max(firstRetained, lastSequence - events.length + 1);
+        if (sequence < oldest - 1 || sequence > lastSequence) {
+            return null;
+        }
+        List<T> missed = new ArrayList<>((int) (lastSequence - sequence));
+        for (long s = sequence + 1; s <= lastSequence; s++) {
+            missed.add((T) events[(int) (s % events.length)]);
+        }
+        return missed;
+    }
+}
@@ -1,10 +1,14 @@
 package com.arsw.tictactoe.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Setter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 
@@ -25,9 +29,35 @@ public class Game {
     private boolean specialCellsEnabled; // Si las celdas especiales están activas
     private List<String> gameLog;       // Log de eventos del juego
     
+    // Reloj de turnos (0 = sin límite)
+    private long turnTimeLimitMs;       // Tiempo máximo por turno
+    private long clockTimeMs;           // Tiempo total por jugador, estilo ajedrez
+    private TimeoutAction timeoutAction; // Qué pasa al vencer un turno
+    private long turnStartedAt;         // Inicio del turno actual (epoch ms)
+    private long turnDeadline;          // Vencimiento del turno actual (epoch ms, 0 = sin plazo)
+    
+    @Setter(AccessLevel.NONE)
+    private long version;               // Versión del último snapshot publicado
+    
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    private TimedEffectQueue effects;   // Efectos del tablero programados por turno
+    
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    private volatile GameSnapshot snapshot; // Último estado publicado (lectura sin bloqueo)
+    
     private static final Random random = new Random();
+    private static final Logger log = LoggerFactory.getLogger(Game.class);
     
     public Game(String gameId) {
+        this(gameId, BoardLayout.random(random));
+    }
+    
+    /**
+     * Crea un juego con una distribución de tablero ya sorteada (ver {@link BoardLayout})
+     */
+    public Game(String gameId, int layout) {
         this.gameId = gameId;
         this.players = new ArrayList<>();
         this.currentPlayerIndex = 0;
@@ -37,57 +67,55 @@ public class Game {
         this.turnCount = 0;
         this.specialCellsEnabled = true;  // Inicializar ANTES de crear el tablero
         this.gameLog = new ArrayList<>();
-        this.board = initializeBoard();   // Ahora sí inicializar el tablero
+        this.timeoutAction = TimeoutAction.SKIP_TURN;
+        this.effects = new TimedEffectQueue();
+        this.board = BoardLayout.toCells(specialCellsEnabled ? layout : BoardLayout.EMPTY);
+        this.snapshot = GameSnapshot.of(this, null, version);
     }
     
     /**
-     * Inicializa el tablero con celdas
-     * Algunas celdas tienen tipos especiales
+     * Reconstruye un juego mutable a partir de su último snapshot (ej: para analizar una versión)
      */
-    private List<Cell> initializeBoard() {
-        List<Cell> cells = new ArrayList<>();
-        List<Integer> specialPositions = new ArrayList<>();
-        
-        // Inicializar todas las celdas como normales primero
-        for (int i = 0; i < 9; i++) {
-            Cell cell = new Cell(i);
-            cells.add(cell);
+    public static Game rehydrate(GameSnapshot source) {
+        Game game = new Game(source.getGameId(), BoardLayout.EMPTY);  // restore reemplaza el tablero
+        game.restore(source);
+        game.createdAt = source.getCreatedAt();
+        game.version = source.getVersion();
+        game.snapshot = source;
+        return game;
+    }
+    
+    /**
+     * Sigue la numeración de versiones del juego anterior con el mismo ID (revancha)
+     */
+    public void continueVersions(GameSnapshot previous) {
+        this.version = Math.max(version, previous.getVersion());
+    }
+    
+    /**
+     * Publica una nueva versión inmutable del estado actual
+     * Debe llamarse por el escritor, con el juego bloqueado, tras cada transición
+     */
+    public GameSnapshot publishSnapshot() {
+        GameSnapshot next = GameSnapshot.of(this, snapshot, ++version);
+        snapshot = next;
+        return next;
+    }
+    
+    /**
+     * Configura el reloj de turnos; solo antes de que empiece la partida
+     */
+    public void configureClock(long turnTimeLimitMs, long clockTimeMs, TimeoutAction timeoutAction) {
+        if (turnTimeLimitMs < 0 || clockTimeMs < 0) {
+            throw new IllegalArgumentException("Tiempo inválido");
         }
-        
-        if (specialCellsEnabled) {
-            // Asegurar que al menos 3-4 celdas sean especiales
-            int minSpecialCells = 3;
-            int maxSpecialCells = 5;
-            int targetSpecialCells = minSpecialCells + random.nextInt(maxSpecialCells - minSpecialCells + 1);
-            
-            // Seleccionar posiciones aleatorias para celdas especiales
-            List<Integer> availablePositions = new ArrayList<>();
-            for (int i = 0; i < 9; i++) {
-                availablePositions.add(i);
-            }
-            Collections.shuffle(availablePositions);
-            
-            // Asignar tipos especiales a las posiciones seleccionadas
-            CellType[] specialTypes = {CellType.TRAP, CellType.POWER, CellType.FAKE, 
-                                       CellType.DOUBLE_POINTS, CellType.REVERSE};
-            
-            for (int i = 0; i < targetSpecialCells && i < availablePositions.size(); i++) {
-                int position = availablePositions.get(i);
-                Cell cell = cells.get(position);
-                
-                // Asignar tipo especial aleatorio
-                CellType specialType = specialTypes[random.nextInt(specialTypes.length)];
-                cell.setType(specialType);
-                cell.setRevealed(false); // NO revelar hasta que se juegue en ella
-                
-                specialPositions.add(position);
-                System.out.println("✨ Celda especial creada en posición " + position + ": " + specialType);
-            }
-            
-            System.out.println("🎮 Tablero inicializado con " + specialPositions.size() + " celdas especiales: " + specialPositions);
+        if (status != GameStatus.WAITING) {
+            throw new IllegalStateException("El juego ya comenzó");
         }
-        
-        return cells;
+        this.turnTimeLimitMs = turnTimeLimitMs;
+        this.clockTimeMs = clockTimeMs;
+        this.timeoutAction = timeoutAction != null ? timeoutAction : TimeoutAction.SKIP_TURN;
+        players.forEach(p -> p.setRemainingTimeMs(clockTimeMs));
     }
     
     /**
@@ -96,6 +124,7 @@ public class Game {
     public boolean addPlayer(Player player) {
         // Permitir que se unan jugadores mientras no esté terminado y no esté lleno
         if (players.size() < 4 && status != GameStatus.FINISHED) {
+            player.setRemainingTimeMs(clockTimeMs);
             players.add(player);
             
             // Si hay 2 jugadores, el juego puede comenzar
@@ -103,6 +132,7 @@ public class Game {
                 status = GameStatus.ACTIVE;
                 players.get(0).setActive(true);
                 addLog(players.get(0).getUsername() + " comienza el juego");
+                startTurnClock();
             }
             
             addLog(player.getUsername() + " se unió al juego (Jugador " + players.size() + "/4)");
@@ -127,27 +157,155 @@ public class Game {
     public void nextPlayer() {
         if (players.isEmpty()) return;
         
+        chargeTurnClock();
         players.get(currentPlayerIndex).setActive(false);
         currentPlayerIndex = (currentPlayerIndex + 1) % players.size();
         players.get(currentPlayerIndex).setActive(true);
         turnCount++;
         updatedAt = LocalDateTime.now();
         
-        // Reducir contadores de bloqueo
-        for (Cell cell : board) {
-            if (cell.isBlocked() && cell.getBlockedTurns() > 0) {
-                cell.setBlockedTurns(cell.getBlockedTurns() - 1);
-                if (cell.getBlockedTurns() <= 0) {
-                    cell.setBlocked(false);
-                }
+        applyDueEffects();
+        startTurnClock();
+    }
+    
+    /**
+     * Bloquea una celda durante los próximos turnos
+     */
+    public void blockCell(int position, int turns) {
+        Cell cell = board.get(position);
+        cell.setBlocked(true);
+        cell.setBlockedUntilTurn(turnCount + turns);
+        effects.schedule(new TimedEffect(turnCount + turns, TimedEffectType.UNBLOCK_CELL, position, null));
+    }
+    
+    /**
+     * Aplica los efectos programados que vencen en el turno actual
+     */
+    private void applyDueEffects() {
+        TimedEffect effect;
+        while ((effect = effects.pollDue(turnCount)) != null) {
+            Cell cell = board.get(effect.getPosition());
+            switch (effect.getType()) {
+                case UNBLOCK_CELL:
+                    // Un bloqueo posterior sobre la misma celda extiende el plazo
+                    if (cell.isBlocked() && cell.getBlockedUntilTurn() <= turnCount) {
+                        cell.setBlocked(false);
+                        cell.setBlockedUntilTurn(0);
+                    }
+                    break;
+                    
+                case REMOVE_FAKE_PIECE:
+                    if (effect.getValue().equals(cell.getValue())) {
+                        cell.setValue(null);
+                        addLog("👻 La pieza falsa en posición " + effect.getPosition() + " desapareció");
+                    }
+                    // El efecto se gasta: la próxima pieza en esta celda se queda
+                    cell.setType(CellType.NORMAL);
+                    cell.setRevealed(true);
+                    break;
             }
         }
     }
     
+    /**
+     * Inicia el plazo del turno del jugador actual
+     */
+    private void startTurnClock() {
+        turnStartedAt = System.currentTimeMillis();
+        Player current = getCurrentPlayer();
+        if (status != GameStatus.ACTIVE || current == null || (turnTimeLimitMs == 0 && clockTimeMs == 0)) {
+            turnDeadline = 0;
+            return;
+        }
+        long limit = turnTimeLimitMs;
+        if (clockTimeMs > 0) {
+            long remaining = Math.max(0, current.getRemainingTimeMs());
+            limit = limit > 0 ? Math.min(limit, remaining) : remaining;
+        }
+        turnDeadline = turnStartedAt + limit;
+    }
+    
+    /**
+     * Descuenta del reloj del jugador actual el tiempo usado en su turno
+     */
+    private void chargeTurnClock() {
+        Player current = getCurrentPlayer();
+        if (clockTimeMs > 0 && current != null && turnStartedAt > 0) {
+            long used = System.currentTimeMillis() - turnStartedAt;
+            current.setRemainingTimeMs(Math.max(0, current.getRemainingTimeMs() - used));
+        }
+    }
+    
+    /**
+     * Detiene el reloj al terminar la partida
+     */
+    private void stopTurnClock() {
+        chargeTurnClock();
+        turnDeadline = 0;
+    }
+    
+    /**
+     * Aplica el vencimiento del turno actual: el jugador pierde el turno o,
+     * si se le acabó el reloj o la partida se juega a FORFEIT, la partida
+     */
+    public void timeOutCurrentPlayer() {
+        Player current = getCurrentPlayer();
+        if (status != GameStatus.ACTIVE || current == null) {
+            return;
+        }
+        if (players.size() < 2) {
+            // Sin rivales no hay a quién pasarle el turno ni quién gane por tiempo
+            winByDefault(current);
+            return;
+        }
+        
+        // Si el plazo lo fijó el reloj del jugador, el reloj quedó en cero
+        boolean flagFell = clockTimeMs > 0 && turnDeadline - turnStartedAt >= current.getRemainingTimeMs();
+        chargeTurnClock();
+        if (flagFell) {
+            current.setRemainingTimeMs(0);
+        }
+        turnStartedAt = System.currentTimeMillis();
+        if (timeoutAction != TimeoutAction.FORFEIT && !flagFell) {
+            addLog("⏰ " + current.getUsername() + " se quedó sin tiempo y pierde el turno");
+            nextPlayer();
+            return;
+        }
+        
+        addLog("⏰ " + current.getUsername() + " se quedó sin tiempo y pierde la partida");
+        if (players.size() == 2) {
+            // Con dos jugadores gana el oponente; ambos siguen en la partida
+            Player opponent = players.get(1 - currentPlayerIndex);
+            current.setActive(false);
+            winner = opponent.getSymbol();
+            status = GameStatus.FINISHED;
+            opponent.setScore(opponent.getScore() + 1);
+            addLog(opponent.getUsername() + " ganó el juego!");
+            stopTurnClock();
+        } else {
+            // Con más jugadores sale de la partida y sigue el próximo
+            players.remove(currentPlayerIndex);
+            currentPlayerIndex = currentPlayerIndex % players.size();
+            players.get(currentPlayerIndex).setActive(true);
+            turnCount++;
+            applyDueEffects();
+            startTurnClock();
+        }
+        updatedAt = LocalDateTime.now();
+    }
+    
     /**
      * Hace una jugada en el tablero
      */
     public MoveResult makeMove(String playerId, int position) {
+        return makeMove(playerId, List.of(position));
+    }
+    
+    /**
+     * Coloca varias piezas del jugador actual en un solo turno (ej: TRIPLE_PLAY)
+     * Valida todas las posiciones antes de colocar ninguna
+     */
+    public MoveResult makeMove(String playerId, List<Integer> positions) {
         MoveResult result = new MoveResult();
         
         // Validaciones
@@ -164,27 +322,41 @@ public class Game {
             return result;
         }
         
-        if (position < 0 || position >= board.size()) {
+        if (positions.isEmpty() || positions.stream().distinct().count() != positions.size()) {
             result.setSuccess(false);
             result.setMessage("Posición inválida");
             return result;
         }
         
-        Cell cell = board.get(position);
-        if (!cell.isPlayable()) {
-            result.setSuccess(false);
-            result.setMessage("Celda no disponible");
-            return result;
+        for (int position : positions) {
+            if (position < 0 || position >= board.size()) {
+                result.setSuccess(false);
+                result.setMessage("Posición inválida");
+                return result;
+            }
+            
+            if (!board.get(position).isPlayable()) {
+                result.setSuccess(false);
+                result.setMessage("Celda no disponible");
+                return result;
+            }
         }
         
         // Hacer la jugada
-        cell.setValue(currentPlayer.getSymbol());
-        cell.setRevealed(true);
-        
-        addLog(currentPlayer.getUsername() + " jugó en posición " + position);
-        
-        // Aplicar efecto de la celda
-        CellEffect effect = applyCellEffect(cell, currentPlayer);
+        CellEffect effect = CellEffect.NONE;
+        for (int position : positions) {
+            Cell cell = board.get(position);
+            cell.setValue(currentPlayer.getSymbol());
+            cell.setRevealed(true);
+            
+            addLog(currentPlayer.getUsername() + " jugó en posición " + position);
+            
+            // Aplicar efecto de la celda (SKIP_TURN prevalece sobre los demás)
+            CellEffect cellEffect = applyCellEffect(cell, currentPlayer, result);
+            if (effect != CellEffect.SKIP_TURN && cellEffect != CellEffect.NONE) {
+                effect = cellEffect;
+            }
+        }
         result.setCellEffect(effect);
         
         // Verificar ganador
@@ -200,9 +372,11 @@ public class Game {
                 winnerPlayer.setScore(winnerPlayer.getScore() + 1);
                 addLog(winnerPlayer.getUsername() + " ganó el juego!");
             }
+            stopTurnClock();
         } else if (isBoardFull()) {
             this.status = GameStatus.FINISHED;
             addLog("Empate!");
+            stopTurnClock();
         } else {
             // Siguiente turno si el efecto no fue SKIP_TURN
             if (effect != CellEffect.SKIP_TURN) {
@@ -223,41 +397,44 @@ public class Game {
     /**
      * Aplica el efecto de una celda especial
      */
-    private CellEffect applyCellEffect(Cell cell, Player player) {
-        System.out.println("🎯 Aplicando efecto de celda tipo: " + cell.getType() + " para jugador: " + player.getUsername());
+    private CellEffect applyCellEffect(Cell cell, Player player, MoveResult result) {
+        log.debug("🎯 Aplicando efecto de celda tipo: {} para jugador: {}", cell.getType(), player.getUsername());
         
         switch (cell.getType()) {
             case TRAP:
                 addLog("💣 ¡Trampa! " + player.getUsername() + " pierde un turno");
-                System.out.println("💣 TRAMPA activada para " + player.getUsername());
+                log.debug("💣 TRAMPA activada para {}", player.getUsername());
                 return CellEffect.SKIP_TURN;
                 
             case POWER:
                 PowerType randomPower = PowerType.values()[random.nextInt(PowerType.values().length)];
                 player.addPower(randomPower);
-                addLog("⚡ " + player.getUsername() + " ganó poder: " + randomPower.getDisplayName());
-                System.out.println("⚡ PODER otorgado a " + player.getUsername() + ": " + randomPower);
-                System.out.println("📋 Poderes actuales de " + player.getUsername() + ": " + player.getPowers());
+                result.setGainedPower(randomPower);
+                addLog("⚡ " + player.getUsername() + " ganó un poder");  // Cuál, solo lo ve él en sus poderes
+                log.debug("⚡ PODER otorgado a {}: {}", player.getUsername(), randomPower);
+                log.debug("📋 Poderes actuales de {}: {}", player.getUsername(), player.getPowers());
                 return CellEffect.POWER_GAINED;
                 
             case FAKE:
+                effects.schedule(new TimedEffect(turnCount + 2, TimedEffectType.REMOVE_FAKE_PIECE,
+                        cell.getPosition(), cell.getValue()));
                 addLog("👻 ¡Celda falsa! La pieza desaparecerá pronto");
-                System.out.println("👻 FAKE activada");
+                log.debug("👻 FAKE activada");
                 return CellEffect.FAKE_CELL;
                 
             case DOUBLE_POINTS:
                 addLog("💎 ¡Celda de puntos dobles activada!");
-                System.out.println("💎 DOUBLE_POINTS activada");
+                log.debug("💎 DOUBLE_POINTS activada");
                 return CellEffect.DOUBLE_POINTS;
                 
             case REVERSE:
                 // Invertir orden de jugadores
                 addLog("🔄 ¡Orden de turnos invertido!");
-                System.out.println("🔄 REVERSE activada");
+                log.debug("🔄 REVERSE activada");
                 return CellEffect.REVERSE_ORDER;
                 
             default:
-                System.out.println("⚪ Celda normal, sin efectos");
+                log.debug("⚪ Celda normal, sin efectos");
                 return CellEffect.NONE;
         }
     }
@@ -302,15 +479,65 @@ public class Game {
         gameLog.add(LocalDateTime.now() + ": " + message);
     }
     
+    /**
+     * Vuelve al estado de un snapshot publicado (usado para deshacer lotes fallidos)
+     * La versión no retrocede: el siguiente snapshot seguirá siendo más nuevo
+     */
+    public void restore(GameSnapshot source) {
+        this.players = new ArrayList<>();
+        source.getPlayers().forEach(p -> players.add(p.toPlayer()));
+        this.board = new ArrayList<>();
+        source.getBoard().forEach(c -> board.add(c.toCell()));
+        this.currentPlayerIndex = source.getCurrentPlayerIndex();
+        this.status = source.getStatus();
+        this.winner = source.getWinner();
+        this.updatedAt = source.getUpdatedAt();
+        this.turnCount = source.getTurnCount();
+        this.specialCellsEnabled = source.isSpecialCellsEnabled();
+        this.gameLog = new ArrayList<>(source.getGameLog());
+        this.turnTimeLimitMs = source.getTurnTimeLimitMs();
+        this.clockTimeMs = source.getClockTimeMs();
+        this.timeoutAction = source.getTimeoutAction();
+        this.turnStartedAt = source.getTurnStartedAt();
+        this.turnDeadline = source.getTurnDeadline();
+        this.effects = new TimedEffectQueue(source.getPendingEffects());
+    }
+    
     /**
      * Remover jugador del juego
      */
     public void removePlayer(String playerId) {
+        Player current = getCurrentPlayer();
         players.removeIf(p -> p.getId().equals(playerId));
+        addLog("Un jugador abandonó el juego");
         if (players.isEmpty()) {
             status = GameStatus.FINISHED;
+            turnDeadline = 0;
+        } else if (status == GameStatus.ACTIVE && players.size() == 1) {
+            // Abandono: la partida no puede seguir con un solo jugador
+            winByDefault(players.get(0));
+        } else if (current != null && current.getId().equals(playerId)) {
+            // Se fue el jugador del turno: el turno pasa al siguiente con plazo nuevo
+            currentPlayerIndex = currentPlayerIndex % players.size();
+            players.get(currentPlayerIndex).setActive(true);
+            startTurnClock();
+        } else if (current != null) {
+            currentPlayerIndex = players.indexOf(current);
         }
-        addLog("Un jugador abandonó el juego");
+    }
+    
+    /**
+     * Termina la partida a favor del único jugador que queda
+     */
+    private void winByDefault(Player last) {
+        currentPlayerIndex = players.indexOf(last);
+        last.setActive(false);
+        winner = last.getSymbol();
+        status = GameStatus.FINISHED;
+        last.setScore(last.getScore() + 1);
+        addLog(last.getUsername() + " ganó el juego!");
+        turnDeadline = 0;
+        updatedAt = LocalDateTime.now();
     }
 }
 
@@ -0,0 +1,130 @@
+package com.arsw.tictactoe.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Estado inmutable y versionado de una partida
+ *
+ * Cada transición de estado publica una nueva instancia. Las celdas, jugadores
+ * y log que no cambiaron se comparten con la versión anterior, por lo que los
+ * lectores (REST, lobby, broadcasts) pueden usarla sin sincronización.
+ */
+@Value
+public class GameSnapshot {
+    long version;
+    String gameId;
+    List<PlayerSnapshot> players;
+    List<CellSnapshot> board;
+    int currentPlayerIndex;
+    GameStatus status;
+    String winner;
+    LocalDateTime createdAt;
+    LocalDateTime updatedAt;
+    int turnCount;
+    boolean specialCellsEnabled;
+    List<String> gameLog;
+    long turnTimeLimitMs;
+    long clockTimeMs;
+    TimeoutAction timeoutAction;
+    long turnStartedAt;
+    long turnDeadline;
+    @JsonIgnore
+    List<TimedEffect> pendingEffects;   // Efectos por turno pendientes (para restaurar)
+    
+    /**
+     * Construye la siguiente versión a partir del juego mutable, reutilizando
+     * las partes sin cambios de la versión anterior (puede ser null)
+     */
+    static GameSnapshot of(Game game, GameSnapshot previous, long version) {
+        return new GameSnapshot(
+                version,
+                game.getGameId(),
+                sharePlayers(game.getPlayers(), previous == null ? null : previous.players),
+                shareCells(game.getBoard(), previous == null ? null : previous.board),
+                game.getCurrentPlayerIndex(),
+                game.getStatus(),
+                game.getWinner(),
+                game.getCreatedAt(),
+                game.getUpdatedAt(),
+                game.getTurnCount(),
+                game.isSpecialCellsEnabled(),
+                shareLog(game.getGameLog(), previous == null ? null : previous.gameLog),
+                game.getTurnTimeLimitMs(),
+                game.getClockTimeMs(),
+                game.getTimeoutAction(),
+                game.getTurnStartedAt(),
+                game.getTurnDeadline(),
+                game.getEffects().snapshot()
+        );
+    }
+    
+    /**
+     * Misma versión con otros jugadores y tablero (vista para un destinatario)
+     */
+    public GameSnapshot project(List<PlayerSnapshot> visiblePlayers, List<CellSnapshot> visibleBoard) {
+        if (visiblePlayers == players && visibleBoard == board) {
+            return this;
+        }
+        return new GameSnapshot(version, gameId, visiblePlayers, visibleBoard, currentPlayerIndex, status, winner,
+                createdAt, updatedAt, turnCount, specialCellsEnabled, gameLog, turnTimeLimitMs, clockTimeMs,
+                timeoutAction, turnStartedAt, turnDeadline, pendingEffects);
+    }
+    
+    private static List<CellSnapshot> shareCells(List<Cell> cells, List<CellSnapshot> previous) {
+        boolean sameShape = previous != null && previous.size() == cells.size();
+        boolean changed = !sameShape;
+        List<CellSnapshot> result = new ArrayList<>(cells.size());
+        for (int i = 0; i < cells.size(); i++) {
+            Cell cell = cells.get(i);
+            if (sameShape && previous.get(i).matches(cell)) {
+                result.add(previous.get(i));
+            } else {
+                result.add(CellSnapshot.of(cell));
+                changed = true;
+            }
+        }
+        return changed ? List.copyOf(result) : previous;
+    }
+    
+    private static List<PlayerSnapshot> sharePlayers(List<Player> players, List<PlayerSnapshot> previous) {
+        boolean sameShape = previous != null && previous.size() == players.size();
+        boolean changed = !sameShape;
+        List<PlayerSnapshot> result = new ArrayList<>(players.size());
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            if (sameShape && previous.get(i).matches(player)) {
+                result.add(previous.get(i));
+            } else {
+                result.add(PlayerSnapshot.of(player));
+                changed = true;
+            }
+        }
+        return changed ? List.copyOf(result) : previous;
+    }
+    
+    private static List<String> shareLog(List<String> log, List<String> previous) {
+        if (log == null) {
+            return List.of();
+        }
+        // El log solo crece: si el tamaño no cambió, el contenido tampoco
+        if (previous != null && previous.size() == log.size()) {
+            return previous;
+        }
+        return List.copyOf(log);
+    }
+    
+    /**
+     * Obtiene el jugador actual
+     */
+    public PlayerSnapshot getCurrentPlayer() {
+        if (currentPlayerIndex < 0 || currentPlayerIndex >= players.size()) {
+            return null;
+        }
+        return players.get(currentPlayerIndex);
+    }
+}
@@ -0,0 +1,82 @@
+package com.arsw.tictactoe.model;
+
+import java.util.Arrays;
+
+/**
+ * Estimador de cardinalidad (HyperLogLog) con memoria fija
+ *
+ * Usa 2^precision registros de un byte; el error típico es 1.04/sqrt(2^precision)
+ * (precision 10: 1 KB y ~3%). No es seguro entre hilos.
+ */
+public class HyperLogLog {
+    
+    private final int precision;
+    private final byte[] registers;
+    
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("Precisión fuera de rango: " + precision);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+    
+    /**
+     * Registra un valor
+     */
+    public void add(String value) {
+        long hash = mix(value.hashCode());
+        int index = (int) (hash >>> (64 - precision));
+        // Ceros iniciales del resto del hash (+1), con tope para no salirse de los bits usados
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+    
+    /**
+     * Cantidad estimada de valores distintos registrados
+     */
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = 0.7213 / (1 + 1.079 / m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            // Rango chico: conteo lineal
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+    
+    /**
+     * Suma otro estimador de la misma precisión (unión de conjuntos)
+     */
+    public void merge(HyperLogLog other) {
+        for (int i = 0; i < registers.length; i++) {
+            registers[i] = (byte) Math.max(registers[i], other.registers[i]);
+        }
+    }
+    
+    public void clear() {
+        Arrays.fill(registers, (byte) 0);
+    }
+    
+    /**
+     * Mezcla final de MurmurHash3: reparte los bits de hashCode en 64 bits
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
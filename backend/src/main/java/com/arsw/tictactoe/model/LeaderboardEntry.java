@@ -0,0 +1,12 @@
+package com.arsw.tictactoe.model;
+
+import lombok.Value;
+
+/**
+ * Posición de un jugador en la tabla global
+ */
+@Value
+public class LeaderboardEntry {
+    int rank;
+    PlayerRating player;
+}
@@ -0,0 +1,23 @@
+package com.arsw.tictactoe.model;
+
+import lombok.Value;
+import lombok.With;
+
+/**
+ * Emparejamiento inmutable de una ronda de torneo
+ */
+@Value
+@With
+public class Match {
+    int round;
+    String gameId;       // null para un bye
+    String playerAId;
+    String playerBId;    // null para un bye
+    String winnerId;     // null mientras no termine o si fue empate
+    int draws;           // Empates repetidos (eliminación directa)
+    boolean finished;
+    
+    public boolean isBye() {
+        return playerBId == null;
+    }
+}
@@ -14,5 +14,7 @@ public class MoveResult {
     private boolean success;
     private String message;
     private CellEffect cellEffect;
+    private PowerType gainedPower;   // Poder ganado en una celda POWER (si hubo)
+    private GameSnapshot snapshot;   // Estado publicado tras la jugada
 }
 
@@ -20,6 +20,7 @@ public class Player {
     private int score;           // Puntuación acumulada
     private List<PowerType> powers;  // Poderes disponibles
     private boolean isActive;    // Si es el turno del jugador
+    private long remainingTimeMs; // Tiempo restante del reloj (si la partida usa reloj)
     
     public Player(String id, String username, String symbol) {
         this.id = id;
@@ -0,0 +1,17 @@
+package com.arsw.tictactoe.model;
+
+import lombok.Value;
+
+/**
+ * Rating Elo inmutable de un jugador entre todas sus partidas
+ */
+@Value
+public class PlayerRating {
+    String profileId;    // Identidad persistente (nombre normalizado)
+    String username;     // Último nombre usado
+    double rating;
+    long gamesPlayed;
+    long wins;
+    long draws;
+    long losses;
+}
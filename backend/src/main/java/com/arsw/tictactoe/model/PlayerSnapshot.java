@@ -0,0 +1,58 @@
+package com.arsw.tictactoe.model;
+
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Vista inmutable de un jugador en una versión concreta del juego
+ */
+@Value
+public class PlayerSnapshot {
+    String id;
+    String username;
+    String symbol;
+    int score;
+    List<PowerType> powers;
+    boolean isActive;
+    long remainingTimeMs;
+    
+    public static PlayerSnapshot of(Player player) {
+        List<PowerType> powers = player.getPowers() == null ? List.of() : List.copyOf(player.getPowers());
+        return new PlayerSnapshot(player.getId(), player.getUsername(), player.getSymbol(),
+                player.getScore(), powers, player.isActive(), player.getRemainingTimeMs());
+    }
+    
+    /**
+     * Indica si el jugador mutable sigue teniendo el mismo estado que esta vista
+     */
+    public boolean matches(Player player) {
+        List<PowerType> current = player.getPowers() == null ? List.of() : player.getPowers();
+        return Objects.equals(id, player.getId())
+                && Objects.equals(username, player.getUsername())
+                && Objects.equals(symbol, player.getSymbol())
+                && score == player.getScore()
+                && isActive == player.isActive()
+                && remainingTimeMs == player.getRemainingTimeMs()
+                && powers.equals(current);
+    }
+    
+    /**
+     * El mismo jugador sin su lista de poderes (lo que ven los demás)
+     */
+    public PlayerSnapshot withoutPowers() {
+        if (powers.isEmpty()) {
+            return this;
+        }
+        return new PlayerSnapshot(id, username, symbol, score, List.of(), isActive, remainingTimeMs);
+    }
+    
+    /**
+     * Crea un jugador mutable con el estado de esta vista
+     */
+    public Player toPlayer() {
+        return new Player(id, username, symbol, score, new ArrayList<>(powers), isActive, remainingTimeMs);
+    }
+}
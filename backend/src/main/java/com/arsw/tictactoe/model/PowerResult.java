@@ -0,0 +1,17 @@
+package com.arsw.tictactoe.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resultado de usar un poder
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PowerResult {
+    private boolean success;
+    private String message;
+    private GameSnapshot snapshot;   // Estado publicado tras el poder (o el previo si falló)
+}
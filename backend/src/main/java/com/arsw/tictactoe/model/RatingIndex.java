@@ -0,0 +1,61 @@
+package com.arsw.tictactoe.model;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Árbol de Fenwick sobre ratings enteros para responder "cuántos jugadores
+ * tienen más rating que X" en O(log n), sin bloqueos para los lectores
+ *
+ * Pensado para un único escritor; un lector concurrente puede ver una
+ * actualización a medias, lo que solo desplaza el ranking un puesto.
+ */
+public class RatingIndex {
+    
+    public static final int MAX_RATING = 4095;
+    
+    private final AtomicIntegerArray tree = new AtomicIntegerArray(MAX_RATING + 2);
+    
+    /**
+     * Registra un jugador con el rating dado
+     */
+    public void add(double rating) {
+        update(bucket(rating), 1);
+    }
+    
+    /**
+     * Quita un jugador con el rating dado
+     */
+    public void remove(double rating) {
+        update(bucket(rating), -1);
+    }
+    
+    /**
+     * Puesto (1 = mejor) de un rating; los empates comparten puesto
+     */
+    public int rank(double rating) {
+        return countAbove(bucket(rating)) + 1;
+    }
+    
+    private int countAbove(int bucket) {
+        return prefix(MAX_RATING + 1) - prefix(bucket + 1);
+    }
+    
+    // Suma de los buckets [0, index)
+    private int prefix(int index) {
+        int sum = 0;
+        for (int i = index; i > 0; i -= i & -i) {
+            sum += tree.get(i);
+        }
+        return sum;
+    }
+    
+    private void update(int bucket, int delta) {
+        for (int i = bucket + 1; i <= MAX_RATING + 1; i += i & -i) {
+            tree.addAndGet(i, delta);
+        }
+    }
+    
+    private static int bucket(double rating) {
+        return (int) Math.max(0, Math.min(MAX_RATING, Math.round(rating)));
+    }
+}
@@ -0,0 +1,17 @@
+package com.arsw.tictactoe.model;
+
+import lombok.Value;
+
+/**
+ * Fila inmutable de la tabla de posiciones de un torneo
+ */
+@Value
+public class Standing {
+    int rank;
+    String playerId;
+    String username;
+    double points;
+    long wins;
+    long draws;
+    long losses;
+}
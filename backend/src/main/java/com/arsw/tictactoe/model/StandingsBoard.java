@@ -0,0 +1,116 @@
+package com.arsw.tictactoe.model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tabla de posiciones de un torneo
+ *
+ * Cada resultado suma en contadores LongAdder por jugador, sin bloqueos entre
+ * partidas que terminan a la vez. La tabla ordenada se reconstruye solo cuando
+ * alguien la pide y hubo resultados nuevos; mientras tanto se sirve la misma copia.
+ */
+public class StandingsBoard {
+    
+    private final Map<String, TournamentPlayer> players = new ConcurrentHashMap<>();
+    private final Map<String, Tally> tallies = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private volatile Table cached = new Table(-1, List.of());
+    
+    public StandingsBoard(List<TournamentPlayer> participants) {
+        for (TournamentPlayer player : participants) {
+            players.put(player.getId(), player);
+            tallies.put(player.getId(), new Tally());
+        }
+    }
+    
+    /**
+     * Registra una victoria (1 punto) y la derrota del oponente
+     */
+    public void recordWin(String winnerId, String loserId) {
+        Tally winner = tallies.get(winnerId);
+        winner.halfPoints.add(2);
+        winner.wins.increment();
+        if (loserId != null) {
+            tallies.get(loserId).losses.increment();
+        }
+        version.incrementAndGet();
+    }
+    
+    /**
+     * Registra un empate (medio punto para cada uno)
+     */
+    public void recordDraw(String playerAId, String playerBId) {
+        for (String id : new String[]{playerAId, playerBId}) {
+            Tally tally = tallies.get(id);
+            tally.halfPoints.add(1);
+            tally.draws.increment();
+        }
+        version.incrementAndGet();
+    }
+    
+    /**
+     * Registra un bye (cuenta como victoria sin oponente)
+     */
+    public void recordBye(String playerId) {
+        recordWin(playerId, null);
+    }
+    
+    /**
+     * Puntos actuales de un jugador
+     */
+    public double getPoints(String playerId) {
+        return tallies.get(playerId).halfPoints.sum() / 2.0;
+    }
+    
+    /**
+     * Tabla ordenada por puntos y victorias; se reutiliza si no hubo resultados nuevos
+     */
+    public List<Standing> snapshot() {
+        Table table = cached;
+        long current = version.get();
+        if (table.version == current) {
+            return table.rows;
+        }
+        
+        List<Standing> rows = new ArrayList<>(tallies.size());
+        tallies.forEach((id, tally) -> rows.add(new Standing(0, id, players.get(id).getUsername(),
+                tally.halfPoints.sum() / 2.0, tally.wins.sum(), tally.draws.sum(), tally.losses.sum())));
+        rows.sort(Comparator.comparingDouble(Standing::getPoints).reversed()
+                .thenComparing(Comparator.comparingLong(Standing::getWins).reversed())
+                .thenComparing(Standing::getUsername));
+        
+        List<Standing> ranked = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            Standing row = rows.get(i);
+            ranked.add(new Standing(i + 1, row.getPlayerId(), row.getUsername(), row.getPoints(),
+                    row.getWins(), row.getDraws(), row.getLosses()));
+        }
+        
+        table = new Table(current, List.copyOf(ranked));
+        cached = table;
+        return table.rows;
+    }
+    
+    private static class Tally {
+        final LongAdder halfPoints = new LongAdder();  // Puntos x2 (empate = 1)
+        final LongAdder wins = new LongAdder();
+        final LongAdder draws = new LongAdder();
+        final LongAdder losses = new LongAdder();
+    }
+    
+    private static class Table {
+        final long version;
+        final List<Standing> rows;
+        
+        Table(long version, List<Standing> rows) {
+            this.version = version;
+            this.rows = rows;
+        }
+    }
+}
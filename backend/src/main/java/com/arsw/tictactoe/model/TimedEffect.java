@@ -0,0 +1,14 @@
+package com.arsw.tictactoe.model;
+
+import lombok.Value;
+
+/**
+ * Efecto pendiente sobre una celda, programado para un número de turno
+ */
+@Value
+public class TimedEffect {
+    int dueTurn;            // Turno en que se aplica
+    TimedEffectType type;
+    int position;           // Celda afectada
+    String value;           // Pieza esperada en la celda (si aplica)
+}
@@ -0,0 +1,62 @@
+package com.arsw.tictactoe.model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Cola de prioridad de efectos del tablero ordenada por número de turno
+ *
+ * En cada turno solo se mira la cabeza de la cola y se sacan los efectos que
+ * vencen en ese turno, así que un turno sin vencimientos cuesta O(1) sin
+ * importar el tamaño del tablero ni cuántos efectos haya pendientes.
+ * Se usa con el juego bloqueado, igual que el resto del estado mutable.
+ */
+public class TimedEffectQueue {
+    
+    private final PriorityQueue<TimedEffect> queue =
+            new PriorityQueue<>(Comparator.comparingInt(TimedEffect::getDueTurn));
+    private List<TimedEffect> published;  // Copia para el snapshot; null si hubo cambios
+    
+    public TimedEffectQueue() {
+        this.published = List.of();
+    }
+    
+    public TimedEffectQueue(List<TimedEffect> effects) {
+        queue.addAll(effects);
+        this.published = effects;
+    }
+    
+    /**
+     * Programa un efecto
+     */
+    public void schedule(TimedEffect effect) {
+        queue.add(effect);
+        published = null;
+    }
+    
+    /**
+     * Saca el siguiente efecto que vence en o antes del turno dado, o null
+     */
+    public TimedEffect pollDue(int turn) {
+        TimedEffect head = queue.peek();
+        if (head == null || head.getDueTurn() > turn) {
+            return null;
+        }
+        published = null;
+        return queue.poll();
+    }
+    
+    /**
+     * Efectos pendientes como lista inmutable; se reutiliza mientras la cola no cambie
+     */
+    public List<TimedEffect> snapshot() {
+        if (published == null) {
+            List<TimedEffect> effects = new ArrayList<>(queue);
+            effects.sort(Comparator.comparingInt(TimedEffect::getDueTurn));
+            published = List.copyOf(effects);
+        }
+        return published;
+    }
+}
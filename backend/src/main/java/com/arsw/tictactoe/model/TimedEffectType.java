@@ -0,0 +1,9 @@
+package com.arsw.tictactoe.model;
+
+/**
+ * Efectos del tablero que se aplican al llegar un turno concreto
+ */
+public enum TimedEffectType {
+    UNBLOCK_CELL,       // Termina el bloqueo de BLOCK_CELL
+    REMOVE_FAKE_PIECE   // Desaparece la pieza jugada en una celda FAKE
+}
@@ -0,0 +1,9 @@
+package com.arsw.tictactoe.model;
+
+/**
+ * Qué pasa cuando vence el tiempo de un turno
+ */
+public enum TimeoutAction {
+    SKIP_TURN,  // El jugador pierde el turno
+    FORFEIT     // El jugador pierde la partida
+}
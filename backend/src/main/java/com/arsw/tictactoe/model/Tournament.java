@@ -0,0 +1,273 @@
+package com.arsw.tictactoe.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Representa un torneo de eliminación directa o sistema suizo
+ *
+ * Los resultados se registran sin bloquear el torneo (partidas de la ronda en un
+ * mapa concurrente y marcadores en {@link StandingsBoard}); solo el armado de
+ * cada ronda se hace con el torneo bloqueado.
+ */
+@Getter
+public class Tournament {
+    
+    /**
+     * Resultado de registrar el final de una partida del torneo
+     */
+    public enum Outcome {
+        IGNORED,        // La partida no pertenece a la ronda actual o ya se registró
+        REMATCH,        // Empate en eliminación directa: se repite la partida
+        RECORDED,       // Resultado registrado, la ronda sigue en curso
+        ROUND_COMPLETE  // Fue el último resultado pendiente de la ronda
+    }
+    
+    // Empates permitidos antes de que avance el primer sembrado
+    private static final int MAX_REMATCHES = 2;
+    
+    private final String tournamentId;
+    private final String name;
+    private final TournamentFormat format;
+    private final List<TournamentPlayer> participants;
+    private final int totalRounds;
+    private final LocalDateTime createdAt;
+    private volatile TournamentStatus status;
+    private volatile int currentRound;
+    private volatile String championId;
+    
+    @Getter(AccessLevel.NONE)
+    private final StandingsBoard standingsBoard;
+    
+    // Partidas de la ronda actual
+    @Getter(AccessLevel.NONE)
+    private volatile Round round = new Round(new ConcurrentHashMap<>(), List.of());
+    @Getter(AccessLevel.NONE)
+    private final AtomicInteger pendingMatches = new AtomicInteger();
+    
+    // Estado de emparejamiento (solo se usa con el torneo bloqueado)
+    @Getter(AccessLevel.NONE)
+    private final Map<String, Set<String>> opponents = new HashMap<>();
+    @Getter(AccessLevel.NONE)
+    private final Set<String> byes = new HashSet<>();
+    @Getter(AccessLevel.NONE)
+    private List<String> alive;
+    
+    public Tournament(String tournamentId, String name, TournamentFormat format,
+                      List<TournamentPlayer> participants, int totalRounds) {
+        this.tournamentId = tournamentId;
+        this.name = name;
+        this.format = format;
+        this.participants = List.copyOf(participants);
+        this.totalRounds = totalRounds;
+        this.createdAt = LocalDateTime.now();
+        this.status = TournamentStatus.WAITING;
+        this.currentRound = 0;
+        this.standingsBoard = new StandingsBoard(participants);
+        
+        // Sembrado aleatorio
+        List<String> seeded = new ArrayList<>();
+        participants.forEach(p -> seeded.add(p.getId()));
+        Collections.shuffle(seeded);
+        this.alive = seeded;
+        seeded.forEach(id -> opponents.put(id, new HashSet<>()));
+    }
+    
+    /**
+     * Rondas necesarias para definir un campeón entre n jugadores
+     */
+    public static int roundsFor(int players) {
+        return 32 - Integer.numberOfLeadingZeros(Math.max(1, players - 1));
+    }
+    
+    /**
+     * Partidas de la ronda actual en orden de llave
+     */
+    public List<Match> getMatches() {
+        Round current = round;
+        List<Match> result = new ArrayList<>(current.order.size());
+        for (String key : current.order) {
+            result.add(current.matches.get(key));
+        }
+        return result;
+    }
+    
+    /**
+     * Tabla de posiciones actual (copia inmutable, sin bloqueo)
+     */
+    @JsonIgnore
+    public List<Standing> getStandings() {
+        return standingsBoard.snapshot();
+    }
+    
+    /**
+     * Arma los emparejamientos de la siguiente ronda
+     * Los byes salen ya terminados; el resto no tiene gameId todavía
+     */
+    public synchronized List<Match> pairNextRound() {
+        status = TournamentStatus.RUNNING;
+        int number = currentRound + 1;
+        List<Match> pairings = new ArrayList<>();
+        
+        if (format == TournamentFormat.SINGLE_ELIMINATION) {
+            if (currentRound > 0) {
+                List<String> winners = new ArrayList<>();
+                getMatches().forEach(m -> winners.add(m.getWinnerId()));
+                alive = winners;
+            }
+            for (int i = 0; i < alive.size(); i += 2) {
+                String a = alive.get(i);
+                String b = i + 1 < alive.size() ? alive.get(i + 1) : null;
+                pairings.add(b == null ? bye(number, a) : new Match(number, null, a, b, null, 0, false));
+            }
+        } else {
+            pairings = pairSwiss(number);
+        }
+        
+        currentRound = number;
+        return pairings;
+    }
+    
+    /**
+     * Sistema suizo: ordena por puntos y empareja con el siguiente rival
+     * aún no enfrentado; el peor clasificado sin bye descansa si son impares
+     */
+    private List<Match> pairSwiss(int number) {
+        List<String> ranked = new ArrayList<>(alive);
+        ranked.sort(Comparator.comparingDouble(standingsBoard::getPoints).reversed());
+        
+        List<Match> pairings = new ArrayList<>();
+        if (ranked.size() % 2 == 1) {
+            String resting = ranked.get(ranked.size() - 1);
+            for (int i = ranked.size() - 1; i >= 0; i--) {
+                if (!byes.contains(ranked.get(i))) {
+                    resting = ranked.get(i);
+                    break;
+                }
+            }
+            ranked.remove(resting);
+            byes.add(resting);
+            pairings.add(bye(number, resting));
+        }
+        
+        LinkedList<String> pending = new LinkedList<>(ranked);
+        while (!pending.isEmpty()) {
+            String a = pending.removeFirst();
+            String b = pending.stream()
+                    .filter(candidate -> !opponents.get(a).contains(candidate))
+                    .findFirst()
+                    .orElse(pending.getFirst());
+            pending.remove(b);
+            opponents.get(a).add(b);
+            opponents.get(b).add(a);
+            pairings.add(new Match(number, null, a, b, null, 0, false));
+        }
+        return pairings;
+    }
+    
+    private Match bye(int number, String playerId) {
+        return new Match(number, null, playerId, null, playerId, 0, true);
+    }
+    
+    /**
+     * Publica las partidas de la ronda (ya con gameId) y registra los byes
+     */
+    public synchronized void beginRound(List<Match> matches) {
+        Map<String, Match> next = new ConcurrentHashMap<>();
+        List<String> order = new ArrayList<>();
+        int pending = 0;
+        for (Match match : matches) {
+            String key = match.isBye() ? "bye:" + match.getPlayerAId() : match.getGameId();
+            next.put(key, match);
+            order.add(key);
+            if (match.isBye()) {
+                standingsBoard.recordBye(match.getPlayerAId());
+            } else {
+                pending++;
+            }
+        }
+        pendingMatches.set(pending);
+        round = new Round(next, List.copyOf(order));
+    }
+    
+    /**
+     * Registra el final de una partida (winnerId null = empate)
+     */
+    public Outcome recordResult(String gameId, String winnerId) {
+        return recordResult(gameId, winnerId, true);
+    }
+    
+    /**
+     * Registra el final de una partida; sin revancha posible un empate en
+     * eliminación directa se resuelve en el momento
+     */
+    public Outcome recordResult(String gameId, String winnerId, boolean rematchAllowed) {
+        Map<String, Match> roundMatches = round.matches;
+        Match match = roundMatches.get(gameId);
+        if (match == null || match.isFinished()) {
+            return Outcome.IGNORED;
+        }
+        
+        boolean elimination = format == TournamentFormat.SINGLE_ELIMINATION;
+        if (winnerId == null && elimination && rematchAllowed && match.getDraws() < MAX_REMATCHES) {
+            return roundMatches.replace(gameId, match, match.withDraws(match.getDraws() + 1))
+                    ? Outcome.REMATCH : Outcome.IGNORED;
+        }
+        
+        // En eliminación directa un empate repetido lo gana el primer sembrado
+        String resolved = winnerId == null && elimination ? match.getPlayerAId() : winnerId;
+        if (!roundMatches.replace(gameId, match, match.withWinnerId(resolved).withFinished(true))) {
+            return Outcome.IGNORED;
+        }
+        
+        if (resolved == null) {
+            standingsBoard.recordDraw(match.getPlayerAId(), match.getPlayerBId());
+        } else {
+            String loser = resolved.equals(match.getPlayerAId()) ? match.getPlayerBId() : match.getPlayerAId();
+            standingsBoard.recordWin(resolved, loser);
+        }
+        
+        return pendingMatches.decrementAndGet() == 0 ? Outcome.ROUND_COMPLETE : Outcome.RECORDED;
+    }
+    
+    /**
+     * Indica si falta jugar más rondas
+     */
+    public synchronized boolean hasNextRound() {
+        if (format == TournamentFormat.SINGLE_ELIMINATION) {
+            return getMatches().size() > 1;
+        }
+        return currentRound < totalRounds;
+    }
+    
+    /**
+     * Cierra el torneo y define el campeón
+     */
+    public synchronized void finish() {
+        if (format == TournamentFormat.SINGLE_ELIMINATION) {
+            championId = getMatches().get(0).getWinnerId();
+        } else {
+            championId = getStandings().get(0).getPlayerId();
+        }
+        status = TournamentStatus.FINISHED;
+    }
+    
+    /**
+     * Partidas de una ronda, por gameId (o "bye:<playerId>"), y su orden de llave
+     */
+    private static class Round {
+        final Map<String, Match> matches;
+        final List<String> order;
+        
+        Round(Map<String, Match> matches, List<String> order) {
+            this.matches = matches;
+            this.order = order;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.arsw.tictactoe.model;
+
+/**
+ * Formatos de torneo soportados
+ */
+public enum TournamentFormat {
+    SINGLE_ELIMINATION,  // Eliminación directa (los empates se repiten)
+    SWISS                // Sistema suizo por puntos
+}
@@ -0,0 +1,12 @@
+package com.arsw.tictactoe.model;
+
+import lombok.Value;
+
+/**
+ * Participante de un torneo; su ID se usa como ID de jugador en cada partida
+ */
+@Value
+public class TournamentPlayer {
+    String id;
+    String username;
+}
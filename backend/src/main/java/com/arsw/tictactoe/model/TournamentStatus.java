@@ -0,0 +1,10 @@
+package com.arsw.tictactoe.model;
+
+/**
+ * Estados posibles de un torneo
+ */
+public enum TournamentStatus {
+    WAITING,   // Inscrito, sin iniciar
+    RUNNING,   // Rondas en curso
+    FINISHED   // Torneo terminado
+}
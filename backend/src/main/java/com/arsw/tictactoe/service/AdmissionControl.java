@@ -0,0 +1,233 @@
+package com.arsw.tictactoe.service;
+
+import com.arsw.tictactoe.dto.AdmissionStats;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Control de admisión de juegos, uniones y sesiones
+ *
+ * Protege la latencia de las partidas en curso rechazando trabajo nuevo con
+ * "reintentar después" en vez de aceptarlo todo. Hay límites globales de
+ * juegos y sesiones, una cola acotada para las uniones (si está llena se
+ * rechaza al instante) y un límite de juegos que se adapta a la latencia
+ * observada de las jugadas: por la ley de Little, con la misma tasa de
+ * jugadas por juego la carga crece con los juegos admitidos, así que si las
+ * jugadas superan el objetivo el límite baja en proporción y, si no, vuelve a
+ * subir de a poco. El límite de juegos es aproximado (se revisa sin bloqueo);
+ * el de sesiones se reserva con un contador atómico y nunca se supera.
+ */
+@Service
+public class AdmissionControl {
+    
+    private static final Logger log = LoggerFactory.getLogger(AdmissionControl.class);
+    
+    // Encabezado con la hora de llegada de un mensaje STOMP (epoch ms)
+    public static final String RECEIVED_AT_HEADER = "receivedAt";
+    
+    // Fracción de jugadas que debe cumplir el objetivo de latencia (p90)
+    private static final double SLO_PERCENTILE = 0.9;
+    private static final int MIN_SAMPLES = 20;
+    
+    @Value("${tictactoe.admission.max-games:10000}")
+    private int maxGames;
+    
+    @Value("${tictactoe.admission.min-games:100}")
+    private int minGames;
+    
+    @Value("${tictactoe.admission.max-sessions:20000}")
+    private int maxSessions;
+    
+    @Value("${tictactoe.admission.max-concurrent-joins:32}")
+    private int maxConcurrentJoins;
+    
+    @Value("${tictactoe.admission.join-queue-size:256}")
+    private int joinQueueSize;
+    
+    @Value("${tictactoe.admission.join-queue-timeout-ms:500}")
+    private long joinQueueTimeoutMs;
+    
+    @Value("${tictactoe.admission.move-latency-target-ms:50}")
+    private long moveLatencyTargetMs;
+    
+    @Value("${tictactoe.admission.sample-interval-ms:1000}")
+    private long sampleIntervalMs;
+    
+    @Value("${tictactoe.admission.retry-after-seconds:5}")
+    private long retryAfterSeconds;
+    
+    @Autowired
+    private GameService gameService;
+    
+    private Semaphore joinPermits;
+    private final AtomicInteger queuedJoins = new AtomicInteger();
+    private final Set<String> sessions = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger openSessions = new AtomicInteger();
+    
+    // Latencia de las jugadas del intervalo actual
+    private final LongAdder moves = new LongAdder();
+    private final LongAdder slowMoves = new LongAdder();
+    private final LongAdder latencySumMs = new LongAdder();
+    
+    private volatile int gameLimit;
+    private volatile double lastLatencyMs;
+    
+    private final LongAdder rejectedGames = new LongAdder();
+    private final LongAdder rejectedJoins = new LongAdder();
+    private final LongAdder rejectedSessions = new LongAdder();
+    
+    private final ScheduledExecutorService limiter = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "admission-limiter");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    @PostConstruct
+    public void start() {
+        joinPermits = new Semaphore(maxConcurrentJoins, true);
+        gameLimit = maxGames;
+        limiter.scheduleAtFixedRate(this::adjust, sampleIntervalMs, sampleIntervalMs, TimeUnit.MILLISECONDS);
+    }
+    
+    @PreDestroy
+    public void stop() {
+        limiter.shutdownNow();
+    }
+    
+    /**
+     * Verifica que se pueda crear un juego más
+     */
+    public void admitGame() {
+        if (gameService.getActiveGameCount() >= gameLimit) {
+            rejectedGames.increment();
+            throw new ServerBusyException("Servidor ocupado: no se admiten juegos nuevos por ahora", retryAfterSeconds);
+        }
+    }
+    
+    /**
+     * Ejecuta una unión con un cupo de concurrencia; si no hay cupo espera en
+     * una cola acotada y, si la cola está llena o vence la espera, rechaza
+     */
+    public <T> T admitJoin(Supplier<T> join) {
+        if (!joinPermits.tryAcquire()) {
+            if (queuedJoins.incrementAndGet() > joinQueueSize) {
+                queuedJoins.decrementAndGet();
+                rejectedJoins.increment();
+                throw new ServerBusyException("Servidor ocupado: demasiadas uniones en espera", retryAfterSeconds);
+            }
+            try {
+                if (!joinPermits.tryAcquire(joinQueueTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    rejectedJoins.increment();
+                    throw new ServerBusyException("Servidor ocupado: la unión no pudo atenderse a tiempo", retryAfterSeconds);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ServerBusyException("Servidor ocupado", retryAfterSeconds);
+            } finally {
+                queuedJoins.decrementAndGet();
+            }
+        }
+        try {
+            return join.get();
+        } finally {
+            joinPermits.release();
+        }
+    }
+    
+    /**
+     * Registra una sesión WebSocket nueva; false si se alcanzó el máximo
+     */
+    public boolean admitSession(String sessionId) {
+        if (!sessions.add(sessionId)) {
+            return true;   // Ya admitida
+        }
+        // Reservar el lugar antes de aceptarla: dos conexiones a la vez no pasan ambas el límite
+        if (openSessions.incrementAndGet() > maxSessions) {
+            openSessions.decrementAndGet();
+            sessions.remove(sessionId);
+            rejectedSessions.increment();
+            return false;
+        }
+        return true;
+    }
+    
+    public void sessionClosed(String sessionId) {
+        if (sessions.remove(sessionId)) {
+            openSessions.decrementAndGet();
+        }
+    }
+    
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+    
+    /**
+     * Registra la latencia de una jugada (desde que llegó el mensaje hasta que se envió el resultado)
+     */
+    public void recordMove(long latencyMs) {
+        moves.increment();
+        latencySumMs.add(latencyMs);
+        if (latencyMs > moveLatencyTargetMs) {
+            slowMoves.increment();
+        }
+    }
+    
+    /**
+     * Ajusta el límite de juegos con las jugadas del último intervalo
+     * (lo llama el hilo del limitador en cada intervalo)
+     */
+    void adjust() {
+        long count = moves.sumThenReset();
+        long slow = slowMoves.sumThenReset();
+        long sum = latencySumMs.sumThenReset();
+        int limit = gameLimit;
+        
+        if (count < MIN_SAMPLES) {
+            // Sin señal suficiente: se vuelve de a poco al máximo
+            gameLimit = grow(limit);
+            return;
+        }
+        
+        double latency = (double) sum / count;
+        lastLatencyMs = latency;
+        if (slow > count * (1 - SLO_PERCENTILE)) {
+            // Little: L = λ·W; bajar los juegos admitidos en proporción al exceso de latencia
+            double gradient = Math.max(0.5, Math.min(0.9, moveLatencyTargetMs / Math.max(latency, 1)));
+            int base = Math.min(limit, gameService.getActiveGameCount());
+            // Con pocos juegos la lentitud no viene de ellos: nunca bajar del mínimo
+            int next = Math.max(Math.min(minGames, maxGames), (int) (base * gradient));
+            if (next < limit && limit == maxGames) {
+                // Solo al empezar a limitar: con la carga sostenida el límite baja en cada intervalo
+                log.warn("🚦 Latencia de jugadas {} ms: límite de juegos {} → {}", Math.round(latency), limit, next);
+            } else if (next < limit) {
+                log.debug("🚦 Latencia de jugadas {} ms: límite de juegos {} → {}", Math.round(latency), limit, next);
+            }
+            gameLimit = next;
+        } else {
+            gameLimit = grow(limit);
+        }
+    }
+    
+    private int grow(int limit) {
+        return (int) Math.min(maxGames, limit + Math.max(1, Math.round(Math.sqrt(limit))));
+    }
+    
+    /**
+     * Estado actual de los límites y rechazos
+     */
+    public AdmissionStats getStats() {
+        return new AdmissionStats(gameService.getActiveGameCount(), gameLimit, maxGames, openSessions.get(), maxSessions,
+                queuedJoins.get(), lastLatencyMs, rejectedGames.sum(), rejectedJoins.sum(), rejectedSessions.sum());
+    }
+}
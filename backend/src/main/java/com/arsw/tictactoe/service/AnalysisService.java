@@ -0,0 +1,276 @@
+package com.arsw.tictactoe.service;
+
+import com.arsw.tictactoe.dto.BatchAction;
+import com.arsw.tictactoe.dto.BranchRequest;
+import com.arsw.tictactoe.event.GameplayEvent;
+import com.arsw.tictactoe.model.*;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+/**
+ * Análisis "qué pasaría si" sobre cualquier versión retenida de un juego
+ *
+ * Cada rama se juega sobre un {@link Game} descartable reconstruido desde el
+ * estado del nodo de partida, con las mismas reglas que las partidas reales
+ * (ver {@link GameService#applyAction}), y queda como un nodo inmutable que
+ * comparte con su padre lo que no cambió. El juego en curso no se toca y las
+ * ramas de un pedido se evalúan en paralelo en un pool propio.
+ *
+ * Mientras la partida sigue, el análisis parte de lo que ve quien lo pide:
+ * las celdas no reveladas cuentan como normales y los poderes de los demás
+ * no se conocen. De una partida terminada se usa el estado completo.
+ */
+@Service
+public class AnalysisService {
+    
+    // Cada cuánto se buscan sesiones vencidas (y el Retry-After al estar lleno)
+    private static final long SWEEP_INTERVAL_SECONDS = 60;
+    
+    @Value("${tictactoe.analysis.threads:0}")
+    private int threads;   // 0 = uno por procesador
+    
+    @Value("${tictactoe.analysis.max-sessions:100}")
+    private int maxSessions;
+    
+    @Value("${tictactoe.analysis.max-nodes-per-session:20000}")
+    private int maxNodesPerSession;
+    
+    @Value("${tictactoe.analysis.session-ttl-ms:600000}")
+    private long sessionTtlMs;
+    
+    @Autowired
+    private GameService gameService;
+    
+    @Autowired
+    private GameBroadcaster broadcaster;
+    
+    @Autowired
+    private GameViews views;
+    
+    private final Map<String, AnalysisSession> sessions = new ConcurrentHashMap<>();
+    
+    private ExecutorService workers;
+    
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "analysis-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    @PostConstruct
+    public void start() {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        workers = Executors.newFixedThreadPool(size, new ThreadFactory() {
+            private int count;
+            
+            @Override
+            public synchronized Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "analysis-worker-" + (++count));
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        sweeper.scheduleWithFixedDelay(this::expire, SWEEP_INTERVAL_SECONDS, SWEEP_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+    
+    @PreDestroy
+    public void stop() {
+        sweeper.shutdownNow();
+        workers.shutdownNow();
+    }
+    
+    /**
+     * Abre una sesión de análisis en una versión del juego (0 = la actual),
+     * tal como la ve playerId (null = espectador); null si el juego no existe
+     */
+    public AnalysisSession open(String gameId, long version, String playerId) {
+        GameSnapshot current = gameService.getSnapshot(gameId).orElse(null);
+        if (current == null) {
+            return null;
+        }
+        GameSnapshot source = version <= 0 || version == current.getVersion()
+                ? current : broadcaster.snapshotAt(gameId, version);
+        if (source == null) {
+            throw new IllegalArgumentException("La versión " + version + " ya no está disponible");
+        }
+        if (sessions.size() >= maxSessions) {
+            throw new ServerBusyException("Demasiadas sesiones de análisis abiertas", SWEEP_INTERVAL_SECONDS);
+        }
+        
+        GameSnapshot state = current.getStatus() == GameStatus.FINISHED
+                ? source : knownTo(views.viewFor(source, playerId));
+        AnalysisSession session = new AnalysisSession(UUID.randomUUID().toString().substring(0, 8), gameId, state);
+        sessions.put(session.getSessionId(), session);
+        return session;
+    }
+    
+    public Optional<AnalysisSession> getSession(String sessionId) {
+        AnalysisSession session = sessions.get(sessionId);
+        if (session != null) {
+            session.touch();
+        }
+        return Optional.ofNullable(session);
+    }
+    
+    public void close(String sessionId) {
+        sessions.remove(sessionId);
+    }
+    
+    /**
+     * Abre varias ramas en paralelo; los resultados vuelven en el orden de los
+     * pedidos. null si la sesión no existe
+     */
+    public List<BranchResult> branch(String sessionId, List<BranchRequest> requests) {
+        AnalysisSession session = getSession(sessionId).orElse(null);
+        if (session == null) {
+            return null;
+        }
+        if (requests == null || requests.isEmpty()) {
+            return List.of();
+        }
+        if (!session.tryReserve(requests.size(), maxNodesPerSession)) {
+            throw new IllegalArgumentException("Máximo de " + maxNodesPerSession + " ramas por sesión");
+        }
+        
+        List<Callable<BranchResult>> tasks = new ArrayList<>(requests.size());
+        for (BranchRequest request : requests) {
+            tasks.add(() -> play(session, request));
+        }
+        // Si la evaluación falla a medias, lo reservado queda tomado (puede haber ramas guardadas)
+        List<BranchResult> results = evaluate(tasks);
+        session.release((int) results.stream().filter(result -> result.getNode() == null).count());
+        return results;
+    }
+    
+    /**
+     * Abre una rama por cada celda donde puede jugar el jugador del turno
+     */
+    public List<BranchResult> expand(String sessionId, String nodeId) {
+        AnalysisSession session = getSession(sessionId).orElse(null);
+        AnalysisNode node = session == null ? null : session.getNode(nodeId);
+        if (node == null) {
+            return null;
+        }
+        GameSnapshot state = node.getState();
+        if (state.getStatus() != GameStatus.ACTIVE || state.getCurrentPlayer() == null) {
+            return List.of();
+        }
+        
+        List<BranchRequest> requests = state.getBoard().stream()
+                .filter(CellSnapshot::isPlayable)
+                .map(cell -> new BranchRequest(nodeId, state.getCurrentPlayer().getId(),
+                        List.of(new BatchAction(BatchAction.ActionType.MOVE, cell.getPosition(), null, null))))
+                .collect(Collectors.toList());
+        return branch(sessionId, requests);
+    }
+    
+    private List<BranchResult> evaluate(List<Callable<BranchResult>> tasks) {
+        if (tasks.size() == 1) {
+            try {
+                return List.of(tasks.get(0).call());
+            } catch (Exception e) {
+                throw new IllegalStateException("No se pudo evaluar la rama", e);
+            }
+        }
+        try {
+            List<BranchResult> results = new ArrayList<>(tasks.size());
+            for (Future<BranchResult> future : workers.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Análisis interrumpido", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("No se pudo evaluar la rama", e.getCause());
+        }
+    }
+    
+    /**
+     * Juega las acciones de una rama sobre una copia del nodo de partida
+     */
+    private BranchResult play(AnalysisSession session, BranchRequest request) {
+        BranchResult result = new BranchResult();
+        AnalysisNode parent = session.getNode(request.getFrom());
+        if (parent == null) {
+            result.setSuccess(false);
+            result.setMessage("Rama no encontrada: " + request.getFrom());
+            return result;
+        }
+        
+        List<BatchAction> actions = request.getActions() != null ? request.getActions() : List.of();
+        if (actions.isEmpty()) {
+            // Misma posición: el nodo nuevo comparte el estado entero
+            result.setSuccess(true);
+            result.setMessage("Rama abierta");
+            result.setNode(session.addChild(parent, null, parent.getState()));
+            return result;
+        }
+        
+        GameSnapshot state = parent.getState();
+        String playerId = request.getPlayerId();
+        if (playerId == null && state.getCurrentPlayer() != null) {
+            playerId = state.getCurrentPlayer().getId();
+        }
+        
+        Game game = Game.rehydrate(state);
+        List<GameplayEvent> ignored = new ArrayList<>(actions.size());
+        for (int i = 0; i < actions.size(); i++) {
+            String error = gameService.applyAction(game, playerId, actions.get(i), ignored);
+            if (error != null) {
+                result.setSuccess(false);
+                result.setMessage("Acción " + (i + 1) + ": " + error);
+                result.setFailedAction(i);
+                return result;
+            }
+        }
+        
+        result.setSuccess(true);
+        result.setMessage("Rama abierta: " + actions.size() + " acciones");
+        result.setNode(session.addChild(parent, label(state, playerId, actions), game.publishSnapshot()));
+        return result;
+    }
+    
+    /**
+     * Descripción de las acciones de una rama (ej: "Ana: 4, BLOCK_CELL [2]")
+     */
+    private static String label(GameSnapshot state, String playerId, List<BatchAction> actions) {
+        String name = state.getPlayers().stream()
+                .filter(p -> p.getId().equals(playerId))
+                .map(PlayerSnapshot::getUsername)
+                .findFirst()
+                .orElse(playerId);
+        return name + ": " + actions.stream()
+                .map(action -> action.getType() == BatchAction.ActionType.MOVE
+                        ? String.valueOf(action.getPosition())
+                        : action.getPowerType() + " " + action.getTargetPositions())
+                .collect(Collectors.joining(", "));
+    }
+    
+    /**
+     * Estado jugable a partir de una vista: las celdas sin revelar cuentan como normales
+     */
+    private static GameSnapshot knownTo(GameSnapshot view) {
+        List<CellSnapshot> board = new ArrayList<>(view.getBoard().size());
+        for (CellSnapshot cell : view.getBoard()) {
+            board.add(cell.getType() != null ? cell : new CellSnapshot(cell.getPosition(), cell.getValue(),
+                    CellType.NORMAL, cell.isRevealed(), cell.isBlocked(), cell.getBlockedUntilTurn()));
+        }
+        return view.project(view.getPlayers(), List.copyOf(board));
+    }
+    
+    /**
+     * Cierra las sesiones sin uso por más de session-ttl-ms
+     */
+    private void expire() {
+        long cutoff = System.currentTimeMillis() - sessionTtlMs;
+        sessions.values().removeIf(session -> session.getLastUsedAt() < cutoff);
+    }
+}
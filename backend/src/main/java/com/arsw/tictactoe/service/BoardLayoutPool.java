@@ -0,0 +1,151 @@
+package com.arsw.tictactoe.service;
+
+import com.arsw.tictactoe.model.BoardLayout;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Reserva de distribuciones de tablero sorteadas de antemano
+ *
+ * Un hilo productor sortea por lotes fuera de los hilos del juego: cada
+ * distribución entra con sus 8 simetrías y el lote se mezcla antes de
+ * publicarse. La reserva es un anillo acotado sin bloqueo con número de
+ * secuencia por ranura: se entrega en el orden en que se generó (FIFO) y
+ * quien reclama nunca espera, porque si está vacía sortea una en el momento.
+ */
+@Component
+public class BoardLayoutPool {
+    
+    @Value("${tictactoe.layouts.pool-size:4096}")
+    private int poolSize;
+    
+    @Value("${tictactoe.layouts.batch-size:32}")
+    private int batchSize;   // Distribuciones sorteadas por lote (cada una entra ×8)
+    
+    private int capacity;
+    private int mask;
+    private int[] layouts;
+    // Ranura i libre para la vuelta v cuando vale v·capacidad + i; llena cuando vale eso + 1
+    private AtomicLongArray sequences;
+    
+    private final AtomicLong head = new AtomicLong();   // Próxima a reclamar
+    private volatile long tail;                         // Próxima a llenar (solo la escribe el productor)
+    private final LongAdder misses = new LongAdder();
+    
+    private Thread producer;
+    private volatile boolean producerWaiting;
+    private volatile boolean running;
+    
+    @PostConstruct
+    public void start() {
+        capacity = Integer.highestOneBit(Math.max(poolSize, 2 * batchSize * BoardLayout.SYMMETRIES) - 1) << 1;
+        mask = capacity - 1;
+        layouts = new int[capacity];
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        running = true;
+        producer = new Thread(this::produce, "layout-producer");
+        producer.setDaemon(true);
+        producer.start();
+    }
+    
+    @PreDestroy
+    public void stop() {
+        running = false;
+        LockSupport.unpark(producer);
+    }
+    
+    /**
+     * Toma la distribución más antigua de la reserva (o sortea una si está vacía)
+     */
+    public int claim() {
+        while (true) {
+            long position = head.get();
+            int index = (int) (position & mask);
+            long sequence = sequences.get(index);
+            if (sequence == position + 1) {
+                if (head.compareAndSet(position, position + 1)) {
+                    int layout = layouts[index];
+                    sequences.set(index, position + capacity);
+                    if (producerWaiting && tail - position <= capacity / 2) {
+                        LockSupport.unpark(producer);
+                    }
+                    return layout;
+                }
+            } else if (sequence <= position) {
+                // Vacía: no hacer esperar a nadie
+                misses.increment();
+                LockSupport.unpark(producer);
+                return BoardLayout.random(ThreadLocalRandom.current());
+            }
+            // Otro hilo tomó esta ranura: reintentar con la siguiente
+        }
+    }
+    
+    /**
+     * Distribuciones listas para entregar
+     */
+    public int available() {
+        return (int) Math.max(0, tail - head.get());
+    }
+    
+    /**
+     * Reclamos que encontraron la reserva vacía
+     */
+    public long misses() {
+        return misses.sum();
+    }
+    
+    private void produce() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int[] batch = new int[batchSize * BoardLayout.SYMMETRIES];
+        while (running) {
+            if (capacity - (tail - head.get()) < batch.length) {
+                // Llena: dormir hasta que baje a la mitad
+                producerWaiting = true;
+                if (capacity - (tail - head.get()) < batch.length) {
+                    LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(100));
+                }
+                producerWaiting = false;
+                continue;
+            }
+            
+            for (int i = 0; i < batchSize; i++) {
+                int layout = BoardLayout.random(random);
+                for (int s = 0; s < BoardLayout.SYMMETRIES; s++) {
+                    batch[i * BoardLayout.SYMMETRIES + s] = BoardLayout.transform(layout, s);
+                }
+            }
+            // Mezclar para que las simetrías de una misma distribución no salgan seguidas
+            for (int i = batch.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = batch[i];
+                batch[i] = batch[j];
+                batch[j] = swap;
+            }
+            
+            long position = tail;
+            for (int layout : batch) {
+                int index = (int) (position & mask);
+                while (sequences.get(index) != position) {
+                    Thread.onSpinWait();   // Un consumidor ya la reclamó pero todavía no la leyó
+                }
+                layouts[index] = layout;
+                sequences.set(index, position + 1);
+                position++;
+            }
+            tail = position;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.arsw.tictactoe.service;
+
+import com.arsw.tictactoe.dto.CommandAck;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Aplica los comandos numerados de cada jugador exactamente una vez y en orden
+ *
+ * Cada jugador tiene una ventana pequeña: un comando repetido (reintento) no
+ * se vuelve a aplicar y recibe la misma confirmación; uno que llega antes de
+ * tiempo espera en la ventana hasta que llegan los anteriores. Así el cliente
+ * puede enviar varias jugadas seguidas y reintentar sin duplicar efectos.
+ *
+ * Una ventana nueva empieza en la primera secuencia sin confirmar que indica
+ * el cliente (o en 1), no en la primera que llega: si llegan desordenadas, o
+ * si la ventana se olvidó mientras el cliente seguía numerando, las
+ * anteriores todavía se esperan en lugar de darse por repetidas.
+ */
+@Service
+public class CommandSequencer {
+    
+    @Autowired
+    private PlayerSessions playerSessions;
+    
+    @Value("${tictactoe.commands.window:32}")
+    private int window;
+    
+    // Ventanas por juego y jugador
+    private final Map<String, Map<String, PlayerWindow>> windows = new ConcurrentHashMap<>();
+    
+    /**
+     * Aplica (o encola, o descarta por repetido) un comando numerado del jugador
+     * y lo confirma a la sesión que lo mandó; since es la primera secuencia que
+     * el cliente no tiene confirmada (0 = desde 1)
+     */
+    public void submit(String gameId, String playerId, String sessionId, long sequence, long since,
+                       Supplier<CommandAck> command) {
+        PlayerWindow player = windows
+                .computeIfAbsent(gameId, id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(playerId, id -> new PlayerWindow(window));
+        
+        // Aplicar y confirmar bajo el bloqueo del jugador mantiene el orden de las confirmaciones
+        synchronized (player) {
+            if (player.next == 0) {
+                // Todo lo anterior a since ya fue confirmado al cliente
+                player.next = since > 0 ? Math.min(since, sequence) : 1;
+            }
+            
+            if (sequence < player.next) {
+                CommandAck previous = player.recent(sequence);
+                send(sessionId, previous != null ? previous.asDuplicate()
+                        : new CommandAck(gameId, playerId, sequence, false, true, "Comando ya procesado", 0));
+                return;
+            }
+            
+            if (sequence >= player.next + window) {
+                send(sessionId, new CommandAck(gameId, playerId, sequence, false, false, "Secuencia fuera de la ventana", 0));
+                return;
+            }
+            
+            if (sequence > player.next) {
+                player.pending.putIfAbsent(sequence, new Pending(sessionId, command));  // Espera a los anteriores
+                return;
+            }
+            
+            // Aplicar este y los que estaban esperando a continuación
+            Pending next = new Pending(sessionId, command);
+            while (next != null) {
+                CommandAck ack;
+                try {
+                    ack = next.command.get();
+                } catch (RuntimeException e) {
+                    ack = new CommandAck(gameId, playerId, player.next, false, false, e.getMessage(), 0);
+                }
+                ack.setSequence(player.next);
+                player.remember(ack);
+                send(next.sessionId, ack);
+                player.next++;
+                next = player.pending.remove(player.next);
+            }
+        }
+    }
+    
+    /**
+     * Libera las ventanas de un juego que ya no está en memoria
+     */
+    public void forget(String gameId) {
+        windows.remove(gameId);
+    }
+    
+    private void send(String sessionId, CommandAck ack) {
+        if (sessionId != null) {
+            playerSessions.sendTo(sessionId, "/queue/commands", ack);
+        }
+    }
+    
+    /**
+     * Estado de secuencia de un jugador (se usa con su propio bloqueo)
+     */
+    private static class PlayerWindow {
+        long next;                                  // Próxima secuencia a aplicar (0 = sin comandos aún)
+        final CommandAck[] acks;                    // Últimas confirmaciones, por secuencia % tamaño
+        final Map<Long, Pending> pending = new HashMap<>();
+        
+        PlayerWindow(int size) {
+            this.acks = new CommandAck[size];
+        }
+        
+        void remember(CommandAck ack) {
+            acks[(int) (ack.getSequence() % acks.length)] = ack;
+        }
+        
+        CommandAck recent(long sequence) {
+            CommandAck ack = acks[(int) (sequence % acks.length)];
+            return ack != null && ack.getSequence() == sequence ? ack : null;
+        }
+    }
+    
+    /**
+     * Comando que espera a los anteriores, con la sesión a la que se confirma
+     */
+    private static class Pending {
+        final String sessionId;
+        final Supplier<CommandAck> command;
+        
+        Pending(String sessionId, Supplier<CommandAck> command) {
+            this.sessionId = sessionId;
+            this.command = command;
+        }
+    }
+}
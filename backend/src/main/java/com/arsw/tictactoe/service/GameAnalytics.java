@@ -0,0 +1,284 @@
+package com.arsw.tictactoe.service;
+
+import com.arsw.tictactoe.dto.AnalyticsReport;
+import com.arsw.tictactoe.dto.AnalyticsWindow;
+import com.arsw.tictactoe.event.GameFinishedEvent;
+import com.arsw.tictactoe.event.GameplayEvent;
+import com.arsw.tictactoe.model.*;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Estadísticas de juego en vivo, calculadas de forma incremental
+ *
+ * Los hilos del juego solo ofrecen eventos a una cola acotada (sin bloquear:
+ * si está llena el evento se descarta y se cuenta). Un único hilo propio los
+ * agrega en ventanas fijas de tiempo (tumbling) que se reutilizan en anillo,
+ * más un total desde el arranque; los distintos se estiman con HyperLogLog,
+ * así la memoria no crece con el tráfico. El reporte se arma en ese hilo como
+ * mínimo cada {@code publish-interval-ms} y se sirve ya armado.
+ */
+@Service
+public class GameAnalytics {
+    
+    private static final int SKETCH_PRECISION = 10;
+    
+    @Value("${tictactoe.analytics.queue-capacity:65536}")
+    private int queueCapacity;
+    
+    @Value("${tictactoe.analytics.window-ms:60000}")
+    private long windowMs;
+    
+    @Value("${tictactoe.analytics.windows:60}")
+    private int windowCount;
+    
+    @Value("${tictactoe.analytics.publish-interval-ms:1000}")
+    private long publishIntervalMs;
+    
+    private BlockingQueue<GameplayEvent> queue;
+    private final LongAdder dropped = new LongAdder();
+    private volatile AnalyticsReport report;
+    
+    // Solo las toca el hilo de agregación
+    private Window total;
+    private Window[] windows;
+    
+    private Thread aggregator;
+    private volatile boolean running;
+    
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        total = new Window();
+        total.reset(System.currentTimeMillis());
+        windows = new Window[windowCount];
+        for (int i = 0; i < windowCount; i++) {
+            windows[i] = new Window();
+        }
+        report = buildReport(System.currentTimeMillis());
+        running = true;
+        aggregator = new Thread(this::run, "game-analytics");
+        aggregator.setDaemon(true);
+        aggregator.start();
+    }
+    
+    @PreDestroy
+    public void stop() {
+        running = false;
+        aggregator.interrupt();
+    }
+    
+    /**
+     * Registra eventos sin bloquear; si la cola está llena se descartan
+     */
+    public void record(List<GameplayEvent> events) {
+        for (GameplayEvent event : events) {
+            record(event);
+        }
+    }
+    
+    public void record(GameplayEvent event) {
+        if (!queue.offer(event)) {
+            dropped.increment();
+        }
+    }
+    
+    @EventListener
+    public void onGameFinished(GameFinishedEvent event) {
+        record(GameplayEvent.finished(event.getGame()));
+    }
+    
+    /**
+     * Último reporte armado (puede tener hasta publish-interval-ms de atraso)
+     */
+    public AnalyticsReport getReport() {
+        return report;
+    }
+    
+    private void run() {
+        long publishedAt = 0;
+        boolean dirty = false;
+        while (running) {
+            try {
+                GameplayEvent event = queue.poll(publishIntervalMs, TimeUnit.MILLISECONDS);
+                while (event != null) {
+                    apply(event);
+                    dirty = true;
+                    event = queue.poll();
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            // Sin eventos igual se rearma de vez en cuando para que las ventanas viejas salgan
+            if ((dirty && now - publishedAt >= publishIntervalMs) || now - publishedAt >= windowMs) {
+                report = buildReport(now);
+                publishedAt = now;
+                dirty = false;
+            }
+        }
+    }
+    
+    private void apply(GameplayEvent event) {
+        long start = event.getTimestamp() - Math.floorMod(event.getTimestamp(), windowMs);
+        Window window = windows[(int) Math.floorMod(start / windowMs, (long) windowCount)];
+        if (window.start < start) {
+            window.reset(start);
+        }
+        total.add(event);
+        if (window.start == start) {
+            window.add(event);  // Si no, el evento es más viejo que el anillo: solo cuenta en el total
+        }
+    }
+    
+    private AnalyticsReport buildReport(long now) {
+        long oldest = now - Math.floorMod(now, windowMs) - (windowCount - 1) * windowMs;
+        List<Window> recent = new ArrayList<>();
+        for (Window window : windows) {
+            if (window.start >= oldest) {
+                recent.add(window);
+            }
+        }
+        recent.sort(Comparator.comparingLong((Window w) -> w.start).reversed());
+        
+        List<AnalyticsWindow> rows = new ArrayList<>(recent.size());
+        for (Window window : recent) {
+            rows.add(window.toDto(window.start, window.start + windowMs));
+        }
+        return new AnalyticsReport(now, windowMs, dropped.sum(), total.toDto(total.start, now), List.copyOf(rows));
+    }
+    
+    /**
+     * Contadores de una ventana; tamaño fijo, se reutiliza al rotar el anillo
+     */
+    private static class Window {
+        long start = Long.MIN_VALUE;
+        long moves;
+        final long[] effects = new long[CellEffect.values().length];
+        final long[] powersGained = new long[PowerType.values().length];
+        final long[] powersUsed = new long[PowerType.values().length];
+        long gamesFinished;
+        long draws;
+        long wins;
+        long turnsToWin;
+        final long[] seatGames = new long[GameService.SYMBOLS.length];
+        final long[] seatWins = new long[GameService.SYMBOLS.length];
+        final long[] symbolGames = new long[GameService.SYMBOLS.length];
+        final long[] symbolWins = new long[GameService.SYMBOLS.length];
+        final HyperLogLog players = new HyperLogLog(SKETCH_PRECISION);
+        final HyperLogLog games = new HyperLogLog(SKETCH_PRECISION);
+        
+        void reset(long start) {
+            this.start = start;
+            moves = 0;
+            Arrays.fill(effects, 0);
+            Arrays.fill(powersGained, 0);
+            Arrays.fill(powersUsed, 0);
+            gamesFinished = 0;
+            draws = 0;
+            wins = 0;
+            turnsToWin = 0;
+            Arrays.fill(seatGames, 0);
+            Arrays.fill(seatWins, 0);
+            Arrays.fill(symbolGames, 0);
+            Arrays.fill(symbolWins, 0);
+            players.clear();
+            games.clear();
+        }
+        
+        void add(GameplayEvent event) {
+            games.add(event.getGameId());
+            if (event.getPlayerId() != null) {
+                players.add(event.getPlayerId());
+            }
+            
+            switch (event.getType()) {
+                case MOVE:
+                    moves++;
+                    effects[event.getCellEffect().ordinal()]++;
+                    if (event.getPowerType() != null) {
+                        powersGained[event.getPowerType().ordinal()]++;
+                    }
+                    break;
+                
+                case POWER_USED:
+                    powersUsed[event.getPowerType().ordinal()]++;
+                    break;
+                
+                case GAME_FINISHED:
+                    addFinished(event.getGame());
+                    break;
+            }
+        }
+        
+        private void addFinished(GameSnapshot game) {
+            gamesFinished++;
+            List<PlayerSnapshot> seated = game.getPlayers();
+            for (int seat = 0; seat < seated.size() && seat < seatGames.length; seat++) {
+                PlayerSnapshot player = seated.get(seat);
+                int symbol = symbolIndex(player.getSymbol());
+                players.add(player.getId());
+                seatGames[seat]++;
+                if (symbol >= 0) {
+                    symbolGames[symbol]++;
+                }
+                if (player.getSymbol().equals(game.getWinner())) {
+                    seatWins[seat]++;
+                    if (symbol >= 0) {
+                        symbolWins[symbol]++;
+                    }
+                }
+            }
+            if (game.getWinner() == null) {
+                draws++;
+            } else {
+                wins++;
+                turnsToWin += game.getTurnCount();
+            }
+        }
+        
+        AnalyticsWindow toDto(long from, long to) {
+            Map<CellEffect, Long> effectCounts = new EnumMap<>(CellEffect.class);
+            for (CellEffect effect : CellEffect.values()) {
+                effectCounts.put(effect, effects[effect.ordinal()]);
+            }
+            Map<PowerType, Long> gained = new EnumMap<>(PowerType.class);
+            Map<PowerType, Long> used = new EnumMap<>(PowerType.class);
+            for (PowerType power : PowerType.values()) {
+                gained.put(power, powersGained[power.ordinal()]);
+                used.put(power, powersUsed[power.ordinal()]);
+            }
+            List<Double> bySeat = new ArrayList<>(seatGames.length);
+            Map<String, Double> bySymbol = new LinkedHashMap<>();
+            for (int i = 0; i < seatGames.length; i++) {
+                bySeat.add(ratio(seatWins[i], seatGames[i]));
+                bySymbol.put(GameService.SYMBOLS[i], ratio(symbolWins[i], symbolGames[i]));
+            }
+            return new AnalyticsWindow(from, to, moves, ratio(effects[CellEffect.SKIP_TURN.ordinal()], moves),
+                    effectCounts, gained, used, gamesFinished, draws, bySeat, bySymbol,
+                    ratio(turnsToWin, wins), players.estimate(), games.estimate());
+        }
+        
+        private static int symbolIndex(String symbol) {
+            for (int i = 0; i < GameService.SYMBOLS.length; i++) {
+                if (GameService.SYMBOLS[i].equals(symbol)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        
+        private static double ratio(long part, long whole) {
+            return whole == 0 ? 0 : (double) part / whole;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.arsw.tictactoe.service;
+
+import com.arsw.tictactoe.dto.EventReplay;
+import com.arsw.tictactoe.dto.GameMessage;
+import com.arsw.tictactoe.model.EventBuffer;
+import com.arsw.tictactoe.model.GameSnapshot;
+import com.arsw.tictactoe.model.PlayerSnapshot;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Envía los eventos de cada juego: la vista de espectador a /topic/game/{gameId},
+ * la de cada jugador a /user/queue/game/{gameId} de las sesiones ligadas a él
+ * ({@link PlayerSessions}) y la que corresponda a las sesiones que lo siguen
+ * por el destino multiplexado ({@link SessionMultiplexer})
+ *
+ * Cada mensaje lleva un número de secuencia por juego (el mismo en todas sus
+ * vistas) y queda en un buffer acotado, de modo que un cliente que se
+ * reconecta pide solo lo que se perdió.
+ */
+@Service
+public class GameBroadcaster {
+    
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+    
+    @Autowired
+    private GameViews views;
+    
+    @Autowired
+    private SessionMultiplexer multiplexer;
+    
+    @Autowired
+    private PlayerSessions playerSessions;
+    
+    @Value("${tictactoe.events.buffer-size:64}")
+    private int bufferSize;
+    
+    // Buffer de eventos recientes por juego (sobrevive a los reinicios del juego)
+    private final Map<String, EventBuffer<GameMessage>> buffers = new ConcurrentHashMap<>();
+    
+    // Jugadores del último estado enviado de cada juego (destinatarios de los mensajes sin estado)
+    private final Map<String, List<String>> recipients = new ConcurrentHashMap<>();
+    
+    /**
+     * Numera, guarda y envía un mensaje a los suscriptores del juego
+     */
+    public GameMessage broadcast(String gameId, GameMessage message) {
+        while (true) {
+            EventBuffer<GameMessage> buffer = buffers.get(gameId);
+            if ((buffer == null || buffer.isMarker()) && message.getGame() == null) {
+                // Errores sin estado (ej: juego inexistente o archivado): no se abre un buffer por ellos
+                messagingTemplate.convertAndSend("/topic/game/" + gameId, message);
+                return message;
+            }
+            if (buffer == null || buffer.isMarker()) {
+                buffer = open(gameId);
+            }
+            // El envío va dentro del bloqueo para que el orden en el tópico sea el de la secuencia
+            synchronized (buffer) {
+                if (buffers.get(gameId) != buffer) {
+                    continue;  // Se compactó o se liberó mientras tanto
+                }
+                GameMessage sequenced = buffer.append(message::withSequence);
+                send(gameId, sequenced);
+                return sequenced;
+            }
+        }
+    }
+    
+    /**
+     * Buffer con lugar para eventos; si el juego estaba archivado, la
+     * numeración sigue después de su marca
+     */
+    private EventBuffer<GameMessage> open(String gameId) {
+        return buffers.compute(gameId, (id, buffer) -> {
+            if (buffer == null) {
+                return new EventBuffer<>(bufferSize);
+            }
+            return buffer.isMarker() ? new EventBuffer<>(bufferSize, buffer.getLastSequence()) : buffer;
+        });
+    }
+    
+    /**
+     * Envía una vez la vista de espectador, sin importar cuántos suscriptores
+     * tenga, y la de cada jugador a cada una de sus sesiones
+     */
+    private void send(String gameId, GameMessage message) {
+        GameSnapshot game = message.getGame();
+        List<String> players;
+        if (game != null) {
+            players = game.getPlayers().stream().map(PlayerSnapshot::getId).toList();
+            recipients.put(gameId, players);
+        } else {
+            players = recipients.getOrDefault(gameId, List.of());
+        }
+        
+        messagingTemplate.convertAndSend("/topic/game/" + gameId, message.withGame(views.spectator(game)));
+        for (String playerId : players) {
+            sendToPlayer(gameId, playerId, () -> message.withGame(views.viewFor(game, playerId)));
+        }
+        // Quien salió o perdió por tiempo ya no está en el juego, pero igual se entera
+        if (message.getPlayerId() != null && !players.contains(message.getPlayerId())) {
+            sendToPlayer(gameId, message.getPlayerId(), () -> message.withGame(views.spectator(game)));
+        }
+        multiplexer.offer(gameId, message);
+    }
+    
+    private void sendToPlayer(String gameId, String playerId, Supplier<GameMessage> view) {
+        Set<String> sessions = playerSessions.sessionsOf(gameId, playerId);
+        if (sessions.isEmpty()) {
+            return;
+        }
+        GameMessage message = view.get();
+        for (String sessionId : sessions) {
+            playerSessions.sendTo(sessionId, "/queue/game/" + gameId, message);
+        }
+    }
+    
+    /**
+     * Suma el juego al destino multiplexado de una sesión: primero el estado
+     * actual con la última secuencia y después cada evento en orden
+     */
+    public void attach(String sessionId, String gameId, String playerId, Supplier<GameSnapshot> current) {
+        EventBuffer<GameMessage> buffer = buffers.computeIfAbsent(gameId, id -> new EventBuffer<>(bufferSize));
+        synchronized (buffer) {
+            // Leído con el buffer bloqueado: a lo sumo más nuevo que la secuencia, nunca más viejo
+            GameSnapshot game = current.get();
+            if (game == null) {
+                multiplexer.reject(sessionId, gameId, "Juego no encontrado");
+                return;
+            }
+            multiplexer.attach(sessionId, gameId, playerId, new GameMessage(GameMessage.MessageType.GAME_UPDATE,
+                    game, "Estado actual", null, buffer.getLastSequence()));
+        }
+    }
+    
+    /**
+     * Eventos posteriores a una secuencia, en la vista de un jugador (null =
+     * espectador); si el buffer ya rotó, el estado completo
+     */
+    public EventReplay eventsSince(String gameId, long sequence, GameSnapshot current, String playerId) {
+        EventBuffer<GameMessage> buffer = buffers.get(gameId);
+        if (buffer == null) {
+            return new EventReplay(gameId, 0, List.of(), views.viewFor(current, playerId));
+        }
+        
+        List<GameMessage> missed;
+        long latest;
+        synchronized (buffer) {
+            missed = buffer.since(sequence);
+            latest = buffer.getLastSequence();
+        }
+        if (missed == null) {
+            return new EventReplay(gameId, latest, List.of(), views.viewFor(current, playerId));
+        }
+        List<GameMessage> visible = new ArrayList<>(missed.size());
+        for (GameMessage event : missed) {
+            visible.add(event.withGame(views.viewFor(event.getGame(), playerId)));
+        }
+        return new EventReplay(gameId, latest, visible, null);
+    }
+    
+    /**
+     * Estado de una versión anterior del juego, si su evento sigue en el buffer
+     */
+    public GameSnapshot snapshotAt(String gameId, long version) {
+        EventBuffer<GameMessage> buffer = buffers.get(gameId);
+        if (buffer == null) {
+            return null;
+        }
+        List<GameMessage> events;
+        synchronized (buffer) {
+            events = buffer.retained();
+        }
+        for (GameMessage event : events) {
+            if (event.getGame() != null && event.getGame().getVersion() == version) {
+                return event.getGame();
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Cambia el buffer de un juego archivado por una marca con su última
+     * secuencia y suelta sus destinatarios; quien se reconecte recibe el
+     * estado completo y la numeración sigue donde estaba
+     */
+    public void compact(String gameId) {
+        EventBuffer<GameMessage> buffer = buffers.get(gameId);
+        if (buffer != null && !buffer.isMarker()) {
+            synchronized (buffer) {
+                buffers.replace(gameId, buffer, EventBuffer.marker(buffer.getLastSequence()));
+            }
+        }
+        recipients.remove(gameId);
+    }
+    
+    /**
+     * Libera el buffer de un juego eliminado
+     */
+    public void forget(String gameId) {
+        buffers.remove(gameId);
+        recipients.remove(gameId);
+        multiplexer.forget(gameId);
+    }
+}
@@ -0,0 +1,242 @@
+package com.arsw.tictactoe.service;
+
+import com.arsw.tictactoe.dto.GameDelta;
+import com.arsw.tictactoe.model.CellSnapshot;
+import com.arsw.tictactoe.model.GameSnapshot;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Long-poll "esperar la próxima versión" para clientes sin WebSocket
+ *
+ * Cada petición queda estacionada como un {@link DeferredResult} (servlet
+ * asíncrono): no ocupa un hilo mientras espera. Al publicarse una versión nueva
+ * del juego se completan todas las esperas con solo los cambios, calculados
+ * contra un historial corto de snapshots que comparten sus partes sin cambios,
+ * en la vista de quien pregunta (ver {@link GameViews}).
+ * Las esperas se completan en un hilo propio, fuera del bloqueo del juego.
+ */
+@Service
+public class GameChangeNotifier {
+    
+    @Value("${tictactoe.poll.history-size:32}")
+    private int historySize;
+    
+    @Autowired
+    private GameViews views;
+    
+    private final Map<String, History> histories = new ConcurrentHashMap<>();
+    
+    private final ExecutorService notifier = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "poll-notifier");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    /**
+     * Espera a que el juego pase de la versión conocida; si ya pasó responde enseguida
+     * (playerId elige la vista: la del jugador o, si es null, la de espectador)
+     */
+    public DeferredResult<GameDelta> poll(String gameId, String playerId, Supplier<GameSnapshot> current,
+                                          long knownVersion, long timeoutMs) {
+        History history = histories.computeIfAbsent(gameId, id -> new History(historySize));
+        DeferredResult<GameDelta> result = new DeferredResult<>(timeoutMs);
+        
+        synchronized (history) {
+            if (history.latest() == null) {
+                // Se lee ya registrado el historial para no perder una publicación intermedia
+                history.add(current.get());
+            }
+            GameSnapshot latest = history.latest();
+            if (latest.getVersion() != knownVersion) {
+                result.setResult(delta(history, knownVersion, latest, playerId));
+                return result;
+            }
+            
+            Waiter waiter = new Waiter(result, knownVersion, playerId);
+            history.waiters.add(waiter);
+            result.onTimeout(() -> result.setResult(unchanged(latest)));
+            result.onCompletion(() -> history.waiters.remove(waiter));
+        }
+        return result;
+    }
+    
+    /**
+     * Registra una versión publicada y despierta a quienes la esperaban
+     * (se llama con el juego bloqueado, así las versiones llegan en orden)
+     */
+    public void onPublish(GameSnapshot snapshot) {
+        History history = histories.get(snapshot.getGameId());
+        if (history == null) {
+            return;  // Nadie consultó este juego por long-poll
+        }
+        
+        List<Waiter> ready;
+        synchronized (history) {
+            history.add(snapshot);
+            if (history.waiters.isEmpty()) {
+                return;
+            }
+            ready = new ArrayList<>(history.waiters);
+            history.waiters.clear();
+        }
+        
+        notifier.execute(() -> wake(history, ready, snapshot));
+    }
+    
+    /**
+     * Completa las esperas con un delta por versión conocida y vista; casi
+     * siempre todos esperan la misma versión
+     */
+    private void wake(History history, List<Waiter> ready, GameSnapshot snapshot) {
+        Map<String, GameDelta> deltas = new HashMap<>();
+        for (Waiter waiter : ready) {
+            GameDelta delta;
+            synchronized (history) {
+                delta = deltas.computeIfAbsent(waiter.knownVersion + "/" + waiter.playerId,
+                        key -> delta(history, waiter.knownVersion, snapshot, waiter.playerId));
+            }
+            waiter.result.setResult(delta);
+        }
+    }
+    
+    /**
+     * Libera el historial de un juego que ya no está en memoria
+     */
+    public void forget(String gameId) {
+        histories.remove(gameId);
+    }
+    
+    /**
+     * Libera el historial de un juego archivado si nadie está esperando
+     */
+    public void release(String gameId) {
+        histories.computeIfPresent(gameId, (id, history) -> history.waiters.isEmpty() ? null : history);
+    }
+    
+    /**
+     * Cantidad de peticiones estacionadas
+     */
+    public int waitingCount() {
+        int count = 0;
+        for (History history : histories.values()) {
+            count += history.waiters.size();
+        }
+        return count;
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        notifier.shutdownNow();
+    }
+    
+    private GameDelta delta(History history, long knownVersion, GameSnapshot to, String playerId) {
+        GameSnapshot view = views.viewFor(to, playerId);
+        GameSnapshot from = history.find(knownVersion);
+        if (from == null || from.getVersion() > to.getVersion() || restarted(from, to)) {
+            return new GameDelta(to.getGameId(), knownVersion, to.getVersion(), view, null, null,
+                    to.getCurrentPlayerIndex(), to.getStatus(), to.getWinner(), to.getTurnCount(),
+                    to.getTurnDeadline(), to.getUpdatedAt(), null);
+        }
+        
+        // Las partes sin cambios son las mismas instancias: basta comparar referencias
+        // (se comparan los snapshots completos y se envía lo que ve el destinatario)
+        List<CellSnapshot> cells = new ArrayList<>();
+        if (from.getBoard() != to.getBoard()) {
+            for (int i = 0; i < to.getBoard().size(); i++) {
+                if (i >= from.getBoard().size() || from.getBoard().get(i) != to.getBoard().get(i)) {
+                    cells.add(view.getBoard().get(i));
+                }
+            }
+        }
+        List<String> log = to.getGameLog().size() > from.getGameLog().size()
+                ? to.getGameLog().subList(from.getGameLog().size(), to.getGameLog().size())
+                : List.of();
+        
+        return new GameDelta(to.getGameId(), knownVersion, to.getVersion(), null, cells,
+                from.getPlayers() != to.getPlayers() ? view.getPlayers() : null,
+                to.getCurrentPlayerIndex(), to.getStatus(), to.getWinner(), to.getTurnCount(),
+                to.getTurnDeadline(), to.getUpdatedAt(), log);
+    }
+    
+    /**
+     * Si entre las dos versiones el juego se reinició (las versiones siguen
+     * contando, pero el tablero y el log vuelven a empezar)
+     */
+    private static boolean restarted(GameSnapshot from, GameSnapshot to) {
+        return !Objects.equals(from.getCreatedAt(), to.getCreatedAt())
+                || to.getGameLog().size() < from.getGameLog().size();
+    }
+    
+    private GameDelta unchanged(GameSnapshot latest) {
+        return new GameDelta(latest.getGameId(), latest.getVersion(), latest.getVersion(), null, List.of(), null,
+                latest.getCurrentPlayerIndex(), latest.getStatus(), latest.getWinner(), latest.getTurnCount(),
+                latest.getTurnDeadline(), latest.getUpdatedAt(), List.of());
+    }
+    
+    private static class Waiter {
+        final DeferredResult<GameDelta> result;
+        final long knownVersion;
+        final String playerId;
+        
+        Waiter(DeferredResult<GameDelta> result, long knownVersion, String playerId) {
+            this.result = result;
+            this.knownVersion = knownVersion;
+            this.playerId = playerId;
+        }
+    }
+    
+    /**
+     * Últimos snapshots publicados de un juego y las peticiones que esperan
+     */
+    private static class History {
+        final GameSnapshot[] recent;
+        int next;
+        final Set<Waiter> waiters = ConcurrentHashMap.newKeySet();
+        
+        History(int size) {
+            this.recent = new GameSnapshot[size];
+        }
+        
+        void add(GameSnapshot snapshot) {
+            GameSnapshot latest = latest();
+            if (latest != null && snapshot.getVersion() == latest.getVersion()) {
+                return;  // Ya registrada al abrir el historial
+            }
+            if (latest != null && snapshot.getVersion() < latest.getVersion()) {
+                // Versiones que retroceden: las anteriores ya no sirven para calcular deltas
+                Arrays.fill(recent, null);
+            }
+            recent[next % recent.length] = snapshot;
+            next++;
+        }
+        
+        GameSnapshot latest() {
+            return next == 0 ? null : recent[(next - 1) % recent.length];
+        }
+        
+        GameSnapshot find(long version) {
+            for (GameSnapshot snapshot : recent) {
+                if (snapshot != null && snapshot.getVersion() == version) {
+                    return snapshot;
+                }
+            }
+            return null;
+        }
+    }
+}
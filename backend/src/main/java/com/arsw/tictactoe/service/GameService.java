@@ -1,13 +1,28 @@
 package com.arsw.tictactoe.service;
 
+import com.arsw.tictactoe.dto.ArchiveStats;
+import com.arsw.tictactoe.dto.BatchAction;
+import com.arsw.tictactoe.dto.GameMessage;
+import com.arsw.tictactoe.event.GameFinishedEvent;
+import com.arsw.tictactoe.event.GameplayEvent;
 import com.arsw.tictactoe.model.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
  * Servicio que maneja la lógica de negocio de los juegos
+ *
+ * Las escrituras se serializan bloqueando cada {@link Game} y terminan
+ * publicando un {@link GameSnapshot}; las lecturas solo usan snapshots.
+ * Un rato después de terminar, cada juego pasa a un {@link ArchivedGame}
+ * compacto y vuelve a ser un objeto solo si alguien lo modifica (ej: revancha).
  */
 @Service
 public class GameService {
@@ -15,55 +30,138 @@ public class GameService {
     // Almacén en memoria de juegos activos
     private final Map<String, Game> games = new ConcurrentHashMap<>();
     
+    // Juegos terminados en forma compacta
+    private final Map<String, ArchivedGame> archived = new ConcurrentHashMap<>();
+    
     // Símbolos disponibles para jugadores
-    private static final String[] SYMBOLS = {"X", "O", "△", "□"};
+    static final String[] SYMBOLS = {"X", "O", "△", "□"};
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private GameBroadcaster broadcaster;
+    
+    @Autowired
+    private HierarchicalTimingWheel timingWheel;
+    
+    @Autowired
+    private CommandSequencer sequencer;
+    
+    @Autowired
+    private GameChangeNotifier changeNotifier;
+    
+    @Autowired
+    private GameAnalytics analytics;
+    
+    @Autowired
+    private GameViews views;
+    
+    @Autowired
+    private BoardLayoutPool layoutPool;
+    
+    @Autowired
+    private PlayerSessions playerSessions;
+    
+    // Plazo pendiente del turno actual de cada juego
+    private final Map<String, TurnTimer> turnTimers = new ConcurrentHashMap<>();
+    
+    @Value("${tictactoe.archive.delay-ms:30000}")
+    private long archiveDelayMs;
+    
+    @Value("${tictactoe.batch.max-actions:16}")
+    private int maxBatchActions;
     
     /**
      * Crea un nuevo juego
      */
     public Game createGame() {
+        return createGame(0, 0, TimeoutAction.SKIP_TURN);
+    }
+    
+    /**
+     * Crea un nuevo juego con reloj de turnos (0 = sin límite)
+     */
+    public Game createGame(long turnTimeLimitMs, long clockTimeMs, TimeoutAction timeoutAction) {
         String gameId = UUID.randomUUID().toString().substring(0, 8);
-        Game game = new Game(gameId);
+        Game game = new Game(gameId, layoutPool.claim());
+        game.configureClock(turnTimeLimitMs, clockTimeMs, timeoutAction);
+        game.publishSnapshot();
         games.put(gameId, game);
         return game;
     }
     
     /**
-     * Obtiene un juego por ID
+     * Obtiene un juego en memoria por ID (los archivados no vuelven a memoria)
      */
     public Optional<Game> getGame(String gameId) {
         return Optional.ofNullable(games.get(gameId));
     }
     
     /**
-     * Obtiene todos los juegos
+     * Obtiene el último estado publicado de un juego (sin bloqueo)
+     * Los archivados se desempaquetan sin volver a memoria
+     */
+    public Optional<GameSnapshot> getSnapshot(String gameId) {
+        Game game = games.get(gameId);
+        if (game != null) {
+            return Optional.of(game.getSnapshot());
+        }
+        ArchivedGame archive = archived.get(gameId);
+        return archive == null ? Optional.empty() : Optional.of(archive.toSnapshot());
+    }
+    
+    /**
+     * Obtiene el último estado publicado de todos los juegos en memoria
+     * (los archivados ya terminaron y no se listan)
+     */
+    public Collection<GameSnapshot> getAllGames() {
+        return games.values().stream()
+                .map(Game::getSnapshot)
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Cantidad de juegos en memoria (sin contar los archivados)
      */
-    public Collection<Game> getAllGames() {
-        return games.values();
+    public int getActiveGameCount() {
+        return games.size();
     }
     
     /**
      * Un jugador se une a un juego
      */
     public Player joinGame(String gameId, String username) {
+        return joinGame(gameId, username, UUID.randomUUID().toString());
+    }
+    
+    /**
+     * Un jugador con identidad conocida (ej: participante de torneo) se une a un juego
+     */
+    public Player joinGame(String gameId, String username, String playerId) {
         Game game = games.get(gameId);
         if (game == null) {
+            if (archived.containsKey(gameId)) {
+                throw new IllegalStateException("El juego ya terminó");
+            }
             throw new IllegalArgumentException("Juego no encontrado");
         }
         
-        if (game.getPlayers().size() >= 4) {
-            throw new IllegalStateException("El juego está lleno");
+        synchronized (game) {
+            if (game.getPlayers().size() >= 4) {
+                throw new IllegalStateException("El juego está lleno");
+            }
+            
+            // Crear jugador con símbolo único
+            String symbol = SYMBOLS[game.getPlayers().size()];
+            Player player = new Player(playerId, username, symbol);
+            
+            // Agregar al juego
+            game.addPlayer(player);
+            publish(game);
+            
+            return player;
         }
-        
-        // Crear jugador con símbolo único
-        String playerId = UUID.randomUUID().toString();
-        String symbol = SYMBOLS[game.getPlayers().size()];
-        Player player = new Player(playerId, username, symbol);
-        
-        // Agregar al juego
-        game.addPlayer(player);
-        
-        return player;
     }
     
     /**
@@ -74,22 +172,145 @@ public class GameService {
         if (game == null) {
             MoveResult result = new MoveResult();
             result.setSuccess(false);
-            result.setMessage("Juego no encontrado");
+            result.setMessage(missing(gameId));
             return result;
         }
         
-        return game.makeMove(playerId, position);
+        MoveResult result;
+        GameSnapshot before;
+        synchronized (game) {
+            before = game.getSnapshot();
+            result = game.makeMove(playerId, position);
+            if (result.isSuccess()) {
+                result.setSnapshot(publish(game));
+            } else {
+                result.setSnapshot(before);
+            }
+        }
+        if (result.isSuccess()) {
+            analytics.record(GameplayEvent.move(gameId, playerId, result));
+        }
+        afterTransition(before, result.getSnapshot());
+        return result;
     }
     
     /**
      * Usa un poder especial
      */
-    public boolean usePower(String gameId, String playerId, PowerType powerType, int targetPosition) {
+    public PowerResult usePower(String gameId, String playerId, PowerType powerType, int targetPosition) {
         Game game = games.get(gameId);
         if (game == null) {
-            return false;
+            return new PowerResult(false, missing(gameId), null);
+        }
+        
+        List<Integer> targets = targetPosition >= 0 ? List.of(targetPosition) : List.of();
+        List<GameplayEvent> events = new ArrayList<>(2);
+        GameSnapshot before;
+        GameSnapshot after;
+        synchronized (game) {
+            before = game.getSnapshot();
+            if (!applyPower(game, playerId, powerType, targets, events)) {
+                game.restore(before);
+                return new PowerResult(false, "No se pudo usar el poder", before);
+            }
+            after = publish(game);
+        }
+        analytics.record(events);
+        afterTransition(before, after);
+        return new PowerResult(true, "Poder usado: " + powerType, after);
+    }
+    
+    /**
+     * Aplica una secuencia de acciones de un jugador de forma atómica:
+     * si alguna falla, el juego vuelve al estado previo al lote
+     */
+    public BatchResult applyBatch(String gameId, String playerId, List<BatchAction> actions) {
+        BatchResult result = new BatchResult();
+        if (actions != null && actions.size() > maxBatchActions) {
+            // Antes de buscar y bloquear el juego: un lote enorme no debe frenar a los demás jugadores
+            result.setSuccess(false);
+            result.setMessage("Lote demasiado grande: máximo " + maxBatchActions + " acciones");
+            result.setSnapshot(getSnapshot(gameId).orElse(null));
+            return result;
+        }
+        Game game = games.get(gameId);
+        if (game == null) {
+            result.setSuccess(false);
+            result.setMessage(missing(gameId));
+            return result;
+        }
+        
+        if (actions == null || actions.isEmpty()) {
+            result.setSuccess(false);
+            result.setMessage("Lote vacío");
+            result.setSnapshot(game.getSnapshot());
+            return result;
+        }
+        
+        List<GameplayEvent> events = new ArrayList<>(actions.size());
+        GameSnapshot before;
+        synchronized (game) {
+            before = game.getSnapshot();
+            for (int i = 0; i < actions.size(); i++) {
+                BatchAction action = actions.get(i);
+                String error = applyAction(game, playerId, action, events);
+                if (error != null) {
+                    game.restore(before);
+                    result.setSuccess(false);
+                    result.setMessage("Acción " + (i + 1) + ": " + error);
+                    result.setFailedAction(i);
+                    result.setSnapshot(before);
+                    return result;
+                }
+            }
+            
+            result.setSuccess(true);
+            result.setMessage("Lote aplicado: " + actions.size() + " acciones");
+            result.setSnapshot(publish(game));
+        }
+        analytics.record(events);
+        afterTransition(before, result.getSnapshot());
+        return result;
+    }
+    
+    /**
+     * Aplica una acción del lote; retorna el motivo del fallo o null si tuvo éxito
+     * Los eventos de estadísticas se juntan en events y solo se registran si el lote se publica
+     * (también la usa el análisis sobre juegos que no están en el servidor)
+     */
+    String applyAction(Game game, String playerId, BatchAction action, List<GameplayEvent> events) {
+        if (action == null || action.getType() == null) {
+            return "Acción inválida";
         }
         
+        switch (action.getType()) {
+            case MOVE:
+                MoveResult move = game.makeMove(playerId, action.getPosition());
+                if (!move.isSuccess()) {
+                    return move.getMessage();
+                }
+                events.add(GameplayEvent.move(game.getGameId(), playerId, move));
+                return null;
+                
+            case POWER:
+                List<Integer> targets = action.getTargetPositions() != null
+                        ? action.getTargetPositions() : List.of();
+                if (action.getPowerType() == null || !applyPower(game, playerId, action.getPowerType(), targets, events)) {
+                    return "No se pudo usar el poder " + action.getPowerType();
+                }
+                return null;
+                
+            default:
+                return "Acción inválida";
+        }
+    }
+    
+    /**
+     * Aplica el efecto de un poder (el llamador debe tener el juego bloqueado
+     * y restaurar el snapshot previo si falla)
+     */
+    private boolean applyPower(Game game, String playerId, PowerType powerType, List<Integer> targets,
+                               List<GameplayEvent> events) {
         Player player = game.getPlayers().stream()
                 .filter(p -> p.getId().equals(playerId))
                 .findFirst()
@@ -99,6 +320,9 @@ public class GameService {
             return false;
         }
         
+        int targetPosition = targets.isEmpty() ? -1 : targets.get(0);
+        events.add(GameplayEvent.powerUsed(game.getGameId(), playerId, powerType));
+        
         // Aplicar efecto del poder
         switch (powerType) {
             case EXTRA_TURN:
@@ -117,8 +341,17 @@ public class GameService {
                 break;
                 
             case SWAP_PIECES:
-                // Intercambiar dos piezas (implementación simplificada)
-                game.getGameLog().add(player.getUsername() + " usó Swap Pieces");
+                // Intercambiar las piezas de dos celdas ocupadas
+                if (targets.size() != 2 || !isOccupied(game, targets.get(0)) || !isOccupied(game, targets.get(1))) {
+                    return false;
+                }
+                Cell first = game.getBoard().get(targets.get(0));
+                Cell second = game.getBoard().get(targets.get(1));
+                String value = first.getValue();
+                first.setValue(second.getValue());
+                second.setValue(value);
+                game.getGameLog().add(player.getUsername() + " intercambió las piezas en "
+                        + targets.get(0) + " y " + targets.get(1));
                 break;
                 
             case REVEAL_TRAP:
@@ -134,33 +367,53 @@ public class GameService {
             case BLOCK_CELL:
                 // Bloquear una celda
                 if (targetPosition >= 0 && targetPosition < game.getBoard().size()) {
-                    Cell targetCell = game.getBoard().get(targetPosition);
-                    targetCell.setBlocked(true);
-                    targetCell.setBlockedTurns(2);
+                    game.blockCell(targetPosition, 2);
                     game.getGameLog().add(player.getUsername() + " bloqueó una celda");
                 }
                 break;
                 
             case TRIPLE_PLAY:
+                // Colocar hasta 3 piezas en un solo turno
+                if (targets.isEmpty() || targets.size() > 3) {
+                    return false;
+                }
                 game.getGameLog().add(player.getUsername() + " usó Triple Play");
-                break;
+                MoveResult move = game.makeMove(playerId, targets);
+                events.add(GameplayEvent.move(game.getGameId(), playerId, move));
+                return move.isSuccess();
         }
         
         return true;
     }
     
+    private boolean isOccupied(Game game, int position) {
+        return position >= 0 && position < game.getBoard().size() && game.getBoard().get(position).isOccupied();
+    }
+    
     /**
      * Remover jugador de un juego
      */
     public void removePlayer(String gameId, String playerId) {
-        Game game = games.get(gameId);
+        Game game = games.get(gameId);  // Un juego archivado ya terminó: queda como estaba
         if (game != null) {
-            game.removePlayer(playerId);
-            
-            // Si el juego está vacío, eliminarlo
-            if (game.getPlayers().isEmpty()) {
-                games.remove(gameId);
+            GameSnapshot before;
+            GameSnapshot after;
+            synchronized (game) {
+                before = game.getSnapshot();
+                game.removePlayer(playerId);
+                after = publish(game);
+                
+                // Si el juego está vacío, eliminarlo
+                if (game.getPlayers().isEmpty()) {
+                    games.remove(gameId, game);
+                    broadcaster.forget(gameId);
+                    views.forget(gameId);
+                    sequencer.forget(gameId);
+                    changeNotifier.forget(gameId);
+                    playerSessions.forget(gameId);
+                }
             }
+            afterTransition(before, after);
         }
     }
     
@@ -168,28 +421,167 @@ public class GameService {
      * Reinicia un juego existente (mantiene los jugadores)
      */
     public Game restartGame(String gameId) {
-        Game oldGame = games.get(gameId);
-        if (oldGame == null) {
+        // Alcanza con el último estado publicado: un juego archivado no necesita volver a memoria
+        GameSnapshot previous = getSnapshot(gameId).orElse(null);
+        if (previous == null) {
             return null;
         }
         
-        // Crear nuevo juego con los mismos jugadores
-        Game newGame = new Game(gameId);
-        oldGame.getPlayers().forEach(player -> {
+        // Crear nuevo juego con los mismos jugadores y el mismo reloj
+        Game newGame = new Game(gameId, layoutPool.claim());
+        newGame.configureClock(previous.getTurnTimeLimitMs(), previous.getClockTimeMs(), previous.getTimeoutAction());
+        newGame.continueVersions(previous);
+        previous.getPlayers().forEach(player -> {
             Player newPlayer = new Player(player.getId(), player.getUsername(), player.getSymbol());
             newPlayer.setScore(player.getScore());
             newGame.addPlayer(newPlayer);
         });
         
-        games.put(gameId, newGame);
+        synchronized (newGame) {
+            // Publicar antes de ponerlo en el mapa: nadie llega a ver el estado vacío del constructor
+            GameSnapshot snapshot = newGame.publishSnapshot();
+            games.put(gameId, newGame);
+            archived.remove(gameId);  // Por si se archivó mientras se armaba la revancha
+            announce(newGame, snapshot);
+        }
         return newGame;
     }
     
+    /**
+     * Publica el estado del juego y reprograma el plazo del turno si cambió
+     * (el llamador debe tener el juego bloqueado)
+     */
+    private GameSnapshot publish(Game game) {
+        GameSnapshot snapshot = game.publishSnapshot();
+        announce(game, snapshot);
+        return snapshot;
+    }
+    
+    /**
+     * Avisa a quienes esperan cambios y reprograma el plazo del turno según
+     * un estado ya publicado (el llamador debe tener el juego bloqueado)
+     */
+    private void announce(Game game, GameSnapshot snapshot) {
+        changeNotifier.onPublish(snapshot);
+        long deadline = snapshot.getStatus() == GameStatus.ACTIVE ? snapshot.getTurnDeadline() : 0;
+        turnTimers.compute(game.getGameId(), (gameId, timer) -> {
+            if (games.get(gameId) != game) {
+                return timer;  // Juego reemplazado (reinicio) o eliminado
+            }
+            if (timer != null && timer.game == game && timer.deadline == deadline) {
+                return timer;  // Mismo turno: el plazo sigue vigente
+            }
+            if (timer != null) {
+                timer.timeout.cancel();
+            }
+            if (deadline == 0) {
+                return null;
+            }
+            long delay = Math.max(0, deadline - System.currentTimeMillis());
+            return new TurnTimer(game, deadline, timingWheel.schedule(
+                    () -> onTurnTimeout(game, deadline), delay, TimeUnit.MILLISECONDS));
+        });
+    }
+    
+    /**
+     * Vence el turno si el juego sigue en el mismo turno que cuando se programó
+     */
+    private void onTurnTimeout(Game game, long deadline) {
+        GameSnapshot before;
+        GameSnapshot after;
+        synchronized (game) {
+            if (games.get(game.getGameId()) != game || game.getStatus() != GameStatus.ACTIVE
+                    || game.getTurnDeadline() != deadline) {
+                return;
+            }
+            before = game.getSnapshot();
+            game.timeOutCurrentPlayer();
+            after = publish(game);
+        }
+        afterTransition(before, after);
+        
+        PlayerSnapshot timedOut = before.getCurrentPlayer();
+        GameMessage.MessageType type = after.getStatus() == GameStatus.FINISHED
+                ? GameMessage.MessageType.GAME_OVER : GameMessage.MessageType.GAME_UPDATE;
+        broadcaster.broadcast(game.getGameId(), new GameMessage(type, after,
+                "⏰ Tiempo agotado para " + timedOut.getUsername(), timedOut.getId()));
+    }
+    
+    /**
+     * Notifica (fuera del bloqueo del juego) las transiciones relevantes
+     * para otros servicios, como el fin de una partida
+     */
+    private void afterTransition(GameSnapshot before, GameSnapshot after) {
+        if (before.getStatus() != GameStatus.FINISHED && after.getStatus() == GameStatus.FINISHED) {
+            eventPublisher.publishEvent(new GameFinishedEvent(after));
+            timingWheel.schedule(() -> archive(after.getGameId()), archiveDelayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    /**
+     * Motivo del rechazo de una escritura sobre un juego que no está en memoria
+     */
+    private String missing(String gameId) {
+        return archived.containsKey(gameId) ? "El juego no está activo" : "Juego no encontrado";
+    }
+    
+    /**
+     * Pasa un juego terminado a su forma compacta
+     */
+    private void archive(String gameId) {
+        Game game = games.get(gameId);
+        if (game == null) {
+            return;
+        }
+        synchronized (game) {
+            if (game.getStatus() != GameStatus.FINISHED || game.getPlayers().isEmpty()) {
+                return;  // Se reinició o se eliminó mientras tanto
+            }
+            ArchivedGame archive = ArchivedGame.of(game.getSnapshot());
+            games.computeIfPresent(gameId, (id, current) -> {
+                if (current != game) {
+                    return current;
+                }
+                archived.put(id, archive);
+                return null;
+            });
+        }
+        broadcaster.compact(gameId);
+        views.forget(gameId);
+        sequencer.forget(gameId);
+        changeNotifier.release(gameId);
+    }
+    
+    /**
+     * Cantidad y tamaño de los juegos archivados
+     */
+    public ArchiveStats getArchiveStats() {
+        long bytes = 0;
+        int count = 0;
+        for (ArchivedGame archive : archived.values()) {
+            bytes += archive.size();
+            count++;
+        }
+        return new ArchiveStats(games.size(), count, bytes, count == 0 ? 0 : bytes / count);
+    }
+    
     /**
      * Reinicia un juego existente (alias para compatibilidad)
      */
     public Game resetGame(String gameId) {
         return restartGame(gameId);
     }
+    
+    private static class TurnTimer {
+        final Game game;
+        final long deadline;
+        final HierarchicalTimingWheel.Timeout timeout;
+        
+        TurnTimer(Game game, long deadline, HierarchicalTimingWheel.Timeout timeout) {
+            this.game = game;
+            this.deadline = deadline;
+            this.timeout = timeout;
+        }
+    }
 }
 
@@ -0,0 +1,126 @@
+package com.arsw.tictactoe.service;
+
+import com.arsw.tictactoe.model.CellSnapshot;
+import com.arsw.tictactoe.model.GameSnapshot;
+import com.arsw.tictactoe.model.PlayerSnapshot;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Vistas por jugador y de espectador de cada versión de un juego
+ *
+ * El estado completo revela el tipo de las celdas aún no reveladas y los
+ * poderes de todos. Cada destinatario recibe en cambio una proyección: el
+ * tablero con esas celdas ocultas (igual para todos) y solo sus propios
+ * poderes. Las vistas se arman una vez por versión y se guardan, así el costo
+ * crece con la cantidad de vistas distintas (jugadores + espectadores) y no
+ * con la de suscriptores; entre versiones se reutilizan las partes sin cambios.
+ */
+@Service
+public class GameViews {
+    
+    // Vistas de la última versión pedida de cada juego
+    private final Map<String, Views> cache = new ConcurrentHashMap<>();
+    
+    /**
+     * Vista de quien no juega la partida
+     */
+    public GameSnapshot spectator(GameSnapshot game) {
+        return viewFor(game, null);
+    }
+    
+    /**
+     * Vista de un jugador (si no pertenece a la partida, la de espectador)
+     */
+    public GameSnapshot viewFor(GameSnapshot game, String playerId) {
+        if (game == null) {
+            return null;
+        }
+        Views views = cache.compute(game.getGameId(), (id, current) ->
+                current == null || current.source.getVersion() < game.getVersion() ? new Views(game, current) : current);
+        if (views.source.getVersion() != game.getVersion()) {
+            views = new Views(game, null);  // Versión vieja (ej: repetir eventos): no se guarda
+        }
+        return views.get(playerId);
+    }
+    
+    /**
+     * Libera las vistas de un juego eliminado o archivado
+     */
+    public void forget(String gameId) {
+        cache.remove(gameId);
+    }
+    
+    /**
+     * Vistas de una versión: tablero oculto y jugadores sin poderes compartidos
+     * por todos, más un snapshot armado por destinatario a pedido
+     */
+    private static class Views {
+        private static final String SPECTATOR = "";
+        
+        final GameSnapshot source;
+        final List<CellSnapshot> board;
+        final List<PlayerSnapshot> players;
+        final Map<String, GameSnapshot> byViewer = new ConcurrentHashMap<>();
+        
+        Views(GameSnapshot source, Views previous) {
+            this.source = source;
+            this.board = previous != null && previous.source.getBoard() == source.getBoard()
+                    ? previous.board : hideCells(source.getBoard(), previous);
+            this.players = previous != null && previous.source.getPlayers() == source.getPlayers()
+                    ? previous.players : hidePowers(source.getPlayers(), previous);
+        }
+        
+        GameSnapshot get(String playerId) {
+            String viewer = playerId != null && indexOf(playerId) >= 0 ? playerId : SPECTATOR;
+            return byViewer.computeIfAbsent(viewer, this::build);
+        }
+        
+        private GameSnapshot build(String viewer) {
+            int index = indexOf(viewer);
+            if (index < 0) {
+                return source.project(players, board);
+            }
+            List<PlayerSnapshot> visible = new ArrayList<>(players);
+            visible.set(index, source.getPlayers().get(index));
+            return source.project(List.copyOf(visible), board);
+        }
+        
+        private int indexOf(String playerId) {
+            List<PlayerSnapshot> all = source.getPlayers();
+            for (int i = 0; i < all.size(); i++) {
+                if (all.get(i).getId().equals(playerId)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        
+        // Una celda o jugador sin cambios (misma instancia) reutiliza su versión oculta anterior
+        private static List<CellSnapshot> hideCells(List<CellSnapshot> cells, Views previous) {
+            List<CellSnapshot> before = previous == null ? null : previous.source.getBoard();
+            List<CellSnapshot> result = new ArrayList<>(cells.size());
+            for (int i = 0; i < cells.size(); i++) {
+                CellSnapshot cell = cells.get(i);
+                boolean same = before != null && i < before.size() && before.get(i) == cell;
+                result.add(same ? previous.board.get(i) : cell.hidden());
+            }
+            return List.copyOf(result);
+        }
+        
+        private static List<PlayerSnapshot> hidePowers(List<PlayerSnapshot> all, Views previous) {
+            List<PlayerSnapshot> before = previous == null ? null : previous.source.getPlayers();
+            List<PlayerSnapshot> result = new ArrayList<>(all.size());
+            for (int i = 0; i < all.size(); i++) {
+                PlayerSnapshot player = all.get(i);
+                boolean same = before != null && i < before.size() && before.get(i) == player;
+                result.add(same ? previous.players.get(i) : player.withoutPowers());
+            }
+            return List.copyOf(result);
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.arsw.tictactoe.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Temporizador de rueda jerárquica para cientos de miles de plazos pendientes
+ *
+ * Cada nivel tiene 64 ranuras; el nivel 0 avanza una ranura por tick y cada
+ * nivel superior cubre 64 veces el rango del anterior. Programar y cancelar
+ * son O(1) y no bloquean: solo encolan la operación, que el hilo del reloj
+ * aplica en el siguiente tick. Cuando un nivel da la vuelta, las tareas de la
+ * ranura correspondiente del nivel superior bajan (cascada) al nivel que les toca.
+ */
+@Component
+public class HierarchicalTimingWheel {
+    
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    
+    @Value("${tictactoe.timers.tick-ms:50}")
+    private long tickMs;
+    
+    // Solo las toca el hilo del reloj
+    private final Slot[][] wheel = new Slot[LEVELS][SLOTS];
+    private long currentTick;
+    
+    private final Queue<Timeout> pendingAdds = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> pendingCancels = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();   // Programados y aún no vencidos ni cancelados
+    
+    private final ExecutorService workers = Executors.newFixedThreadPool(2, daemon("timer-worker"));
+    private Thread ticker;
+    private volatile long startNanos;
+    private volatile boolean running;
+    
+    public HierarchicalTimingWheel() {
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                wheel[level][slot] = new Slot();
+            }
+        }
+    }
+    
+    /**
+     * Programa una tarea; nunca vence antes de tiempo y se atrasa a lo sumo un tick
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        long elapsedTicks = (System.nanoTime() - startNanos) / TimeUnit.MILLISECONDS.toNanos(tickMs);
+        long delayTicks = (unit.toMillis(delay) + tickMs - 1) / tickMs;
+        // +1: el tick actual ya empezó, contar desde su final
+        Timeout timeout = new Timeout(this, task, elapsedTicks + 1 + delayTicks);
+        pendingAdds.add(timeout);
+        return timeout;
+    }
+    
+    /**
+     * Plazos programados y aún no vencidos ni cancelados
+     */
+    public int pendingCount() {
+        return pending.get();
+    }
+    
+    @PostConstruct
+    public void start() {
+        startNanos = System.nanoTime();
+        running = true;
+        ticker = daemon("timing-wheel").newThread(this::run);
+        ticker.start();
+    }
+    
+    @PreDestroy
+    public void stop() {
+        running = false;
+        ticker.interrupt();
+        workers.shutdownNow();
+    }
+    
+    private void run() {
+        long tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMs);
+        while (running) {
+            long target = (System.nanoTime() - startNanos) / tickNanos;
+            while (currentTick < target) {
+                tick();
+            }
+            long sleepNanos = startNanos + (currentTick + 1) * tickNanos - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Avanza un tick: aplica altas y bajas pendientes, baja las cascadas y
+     * vence las tareas de la ranura actual del nivel 0
+     */
+    private void tick() {
+        long tick = ++currentTick;
+        
+        Timeout cancelled;
+        while ((cancelled = pendingCancels.poll()) != null) {
+            if (cancelled.slot != null) {
+                cancelled.slot.remove(cancelled);
+            }
+        }
+        Timeout added;
+        while ((added = pendingAdds.poll()) != null) {
+            if (added.state.get() == Timeout.PENDING) {
+                insert(added);
+            }
+        }
+        
+        for (int level = 1; level < LEVELS; level++) {
+            if ((tick & ((1L << (BITS * level)) - 1)) != 0) {
+                break;
+            }
+            Slot slot = wheel[level][(int) ((tick >>> (BITS * level)) & MASK)];
+            Timeout timeout = slot.clear();
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                timeout.next = null;
+                timeout.prev = null;
+                timeout.slot = null;
+                insert(timeout);
+                timeout = next;
+            }
+        }
+        
+        Timeout timeout = wheel[0][(int) (tick & MASK)].clear();
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            timeout.next = null;
+            timeout.prev = null;
+            timeout.slot = null;
+            if (timeout.deadlineTick <= tick) {
+                timeout.expire(workers);
+            } else {
+                insert(timeout);
+            }
+            timeout = next;
+        }
+    }
+    
+    /**
+     * Ubica una tarea en el nivel cuyo rango cubre su plazo
+     */
+    private void insert(Timeout timeout) {
+        long deadline = Math.max(timeout.deadlineTick, currentTick);
+        long delta = deadline - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << (BITS * (level + 1)))) {
+            level++;
+        }
+        if (level == LEVELS - 1 && delta >= (1L << (BITS * LEVELS))) {
+            // Más allá del último nivel: se estaciona en el rango máximo y se vuelve a ubicar al bajar
+            deadline = currentTick + (1L << (BITS * LEVELS)) - 1;
+        }
+        wheel[level][(int) ((deadline >>> (BITS * level)) & MASK)].add(timeout);
+    }
+    
+    private static java.util.concurrent.ThreadFactory daemon(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+    
+    /**
+     * Lista doblemente enlazada intrusiva de una ranura
+     */
+    private static class Slot {
+        private Timeout head;
+        
+        void add(Timeout timeout) {
+            timeout.slot = this;
+            timeout.next = head;
+            if (head != null) {
+                head.prev = timeout;
+            }
+            head = timeout;
+        }
+        
+        void remove(Timeout timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.slot = null;
+        }
+        
+        Timeout clear() {
+            Timeout first = head;
+            head = null;
+            return first;
+        }
+    }
+    
+    /**
+     * Plazo programado en la rueda
+     */
+    public static class Timeout {
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+        
+        private final HierarchicalTimingWheel wheel;
+        private final Runnable task;
+        private final long deadlineTick;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        
+        // Enlaces de la ranura (solo los toca el hilo del reloj)
+        private Slot slot;
+        private Timeout prev;
+        private Timeout next;
+        
+        private Timeout(HierarchicalTimingWheel wheel, Runnable task, long deadlineTick) {
+            this.wheel = wheel;
+            this.task = task;
+            this.deadlineTick = deadlineTick;
+            wheel.pending.incrementAndGet();
+        }
+        
+        /**
+         * Cancela el plazo si aún no venció; O(1)
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(PENDING, CANCELLED)) {
+                return false;
+            }
+            wheel.pending.decrementAndGet();
+            wheel.pendingCancels.add(this);
+            return true;
+        }
+        
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+        
+        private void expire(ExecutorService workers) {
+            if (state.compareAndSet(PENDING, EXPIRED)) {
+                wheel.pending.decrementAndGet();
+                workers.execute(task);
+            }
+        }
+    }
+}
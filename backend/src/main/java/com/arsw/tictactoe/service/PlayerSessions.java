@@ -0,0 +1,141 @@
+package com.arsw.tictactoe.service;
+
+import com.arsw.tictactoe.dto.PlayerSeat;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Identidad de los jugadores: la clave que recibe cada uno al unirse y las
+ * sesiones STOMP a las que va su vista
+ *
+ * Los ids de jugador son públicos (están en la vista de espectador), así que
+ * no alcanzan para pedir la vista de un jugador. Al unirse, la sesión queda
+ * ligada al jugador y recibe una clave solo por su destino privado; con esa
+ * clave se liga otra sesión tras reconectar y se piden las vistas por REST.
+ */
+@Service
+public class PlayerSessions {
+    
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+    
+    // Claves de cada juego: token → playerId
+    private final Map<String, Map<String, String>> tokens = new ConcurrentHashMap<>();
+    
+    // Sesiones ligadas a cada jugador: gameId → playerId → sesiones
+    private final Map<String, Map<String, Set<String>>> bound = new ConcurrentHashMap<>();
+    
+    // Sesiones conectadas y los juegos en que están ligadas
+    private final Map<String, Set<String>> sessions = new ConcurrentHashMap<>();
+    
+    /**
+     * Da la clave a un jugador recién unido, liga la sesión que lo pidió y
+     * le envía el asiento solo a ella
+     */
+    public PlayerSeat seat(String gameId, String playerId, String sessionId) {
+        PlayerSeat seat = new PlayerSeat(gameId, playerId, UUID.randomUUID().toString());
+        tokens.computeIfAbsent(gameId, id -> new ConcurrentHashMap<>()).put(seat.getToken(), playerId);
+        if (sessionId != null && bind(gameId, playerId, sessionId)) {
+            sendTo(sessionId, "/queue/seats", seat);
+        }
+        return seat;
+    }
+    
+    /**
+     * Liga otra sesión al jugador dueño de la clave (ej: tras reconectar);
+     * null si la clave no es de ese juego
+     */
+    public String resume(String gameId, String token, String sessionId) {
+        String playerId = playerFor(gameId, token);
+        if (playerId != null && !bind(gameId, playerId, sessionId)) {
+            return null;
+        }
+        return playerId;
+    }
+    
+    /**
+     * Jugador dueño de una clave (null si no hay clave o no es de ese juego)
+     */
+    public String playerFor(String gameId, String token) {
+        Map<String, String> ofGame = token == null ? null : tokens.get(gameId);
+        return ofGame == null ? null : ofGame.get(token);
+    }
+    
+    /**
+     * Sesiones que reciben la vista de un jugador
+     */
+    public Set<String> sessionsOf(String gameId, String playerId) {
+        Map<String, Set<String>> ofGame = bound.get(gameId);
+        Set<String> ofPlayer = ofGame == null || playerId == null ? null : ofGame.get(playerId);
+        return ofPlayer == null ? Set.of() : ofPlayer;
+    }
+    
+    /**
+     * Envía un mensaje a una sola sesión por su destino /user/queue/...
+     */
+    public void sendTo(String sessionId, String destination, Object payload) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId(sessionId);
+        headers.setLeaveMutable(true);
+        messagingTemplate.convertAndSendToUser(sessionId, destination, payload, headers.getMessageHeaders());
+    }
+    
+    /**
+     * Solo se ligan sesiones conectadas: una que ya se cerró no vuelve a aparecer
+     */
+    private boolean bind(String gameId, String playerId, String sessionId) {
+        Set<String> games = sessions.computeIfPresent(sessionId, (id, current) -> {
+            current.add(gameId);
+            bound.compute(gameId, (g, players) -> {
+                Map<String, Set<String>> ofGame = players != null ? players : new ConcurrentHashMap<>();
+                ofGame.computeIfAbsent(playerId, p -> ConcurrentHashMap.newKeySet()).add(sessionId);
+                return ofGame;
+            });
+            return current;
+        });
+        return games != null;
+    }
+    
+    @EventListener
+    public void onConnect(SessionConnectEvent event) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+        if (sessionId != null) {
+            sessions.putIfAbsent(sessionId, ConcurrentHashMap.newKeySet());
+        }
+    }
+    
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        // Quitarla primero: desde acá ningún bind la vuelve a ligar
+        Set<String> games = sessions.remove(event.getSessionId());
+        if (games == null) {
+            return;
+        }
+        for (String gameId : games) {
+            bound.computeIfPresent(gameId, (id, players) -> {
+                players.values().forEach(set -> set.remove(event.getSessionId()));
+                players.values().removeIf(Set::isEmpty);
+                return players.isEmpty() ? null : players;
+            });
+        }
+    }
+    
+    /**
+     * Suelta las claves y sesiones de un juego eliminado
+     */
+    public void forget(String gameId) {
+        tokens.remove(gameId);
+        bound.remove(gameId);
+    }
+}
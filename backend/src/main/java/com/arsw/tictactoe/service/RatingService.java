@@ -0,0 +1,257 @@
+package com.arsw.tictactoe.service;
+
+import com.arsw.tictactoe.event.GameFinishedEvent;
+import com.arsw.tictactoe.model.*;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Servicio de rating Elo global y tabla de posiciones
+ *
+ * Todas las escrituras (actualizar ratings al terminar una partida y guardar
+ * el archivo) corren en un único hilo propio, fuera de los hilos del juego.
+ * Las lecturas usan una skip list ordenada para el top-K y un árbol de
+ * Fenwick para el puesto de un jugador, ambos sin bloqueo.
+ */
+@Service
+public class RatingService {
+    
+    private static final Logger log = LoggerFactory.getLogger(RatingService.class);
+    
+    private static final double INITIAL_RATING = 1200;
+    private static final double K_FACTOR = 32;
+    
+    private static final Comparator<PlayerRating> BY_RATING =
+            Comparator.comparingDouble(PlayerRating::getRating).reversed()
+                    .thenComparing(PlayerRating::getProfileId);
+    
+    @Value("${tictactoe.leaderboard.file:data/leaderboard.tsv}")
+    private String file;
+    
+    @Value("${tictactoe.leaderboard.flush-interval-ms:2000}")
+    private long flushIntervalMs;
+    
+    private final Map<String, PlayerRating> ratings = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<PlayerRating> ranking = new ConcurrentSkipListSet<>(BY_RATING);
+    private final RatingIndex index = new RatingIndex();
+    
+    // Hilo único de escritura: actualizaciones y guardado en archivo
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "rating-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private boolean flushScheduled;   // Solo se usa desde el hilo de escritura
+    
+    /**
+     * Identidad persistente de un jugador a partir de su nombre
+     */
+    public static String profileId(String username) {
+        return username == null ? "" : username.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    /**
+     * Actualiza los ratings de los jugadores de una partida terminada
+     */
+    @EventListener
+    public void onGameFinished(GameFinishedEvent event) {
+        writer.execute(() -> applyResult(event.getGame()));
+    }
+    
+    /**
+     * Los mejores k jugadores
+     */
+    public List<LeaderboardEntry> getTop(int k) {
+        List<LeaderboardEntry> top = new ArrayList<>(Math.min(k, 100));
+        for (PlayerRating rating : ranking) {
+            if (top.size() >= k) {
+                break;
+            }
+            top.add(new LeaderboardEntry(index.rank(rating.getRating()), rating));
+        }
+        return top;
+    }
+    
+    /**
+     * Rating y puesto de un jugador
+     */
+    public Optional<LeaderboardEntry> getEntry(String username) {
+        PlayerRating rating = ratings.get(profileId(username));
+        if (rating == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new LeaderboardEntry(index.rank(rating.getRating()), rating));
+    }
+    
+    /**
+     * Elo por pares: el ganador le gana a cada otro jugador; en empate todos empatan entre sí
+     */
+    private void applyResult(GameSnapshot game) {
+        List<PlayerSnapshot> players = game.getPlayers();
+        if (players.size() < 2) {
+            return;
+        }
+        
+        Map<String, PlayerRating> before = new LinkedHashMap<>();
+        for (PlayerSnapshot player : players) {
+            String id = profileId(player.getUsername());
+            before.put(id, ratings.getOrDefault(id,
+                    new PlayerRating(id, player.getUsername(), INITIAL_RATING, 0, 0, 0, 0)));
+        }
+        if (before.size() < 2) {
+            return;
+        }
+        
+        String winnerId = players.stream()
+                .filter(p -> p.getSymbol().equals(game.getWinner()))
+                .map(p -> profileId(p.getUsername()))
+                .findFirst()
+                .orElse(null);
+        
+        Map<String, Double> deltas = new HashMap<>();
+        List<String> ids = new ArrayList<>(before.keySet());
+        for (int i = 0; i < ids.size(); i++) {
+            for (int j = i + 1; j < ids.size(); j++) {
+                String a = ids.get(i);
+                String b = ids.get(j);
+                double scoreA;
+                if (winnerId == null) {
+                    scoreA = 0.5;
+                } else if (a.equals(winnerId)) {
+                    scoreA = 1;
+                } else if (b.equals(winnerId)) {
+                    scoreA = 0;
+                } else {
+                    continue;  // Dos perdedores no se enfrentan entre sí
+                }
+                double expectedA = 1 / (1 + Math.pow(10, (before.get(b).getRating() - before.get(a).getRating()) / 400));
+                double delta = K_FACTOR * (scoreA - expectedA);
+                deltas.merge(a, delta, Double::sum);
+                deltas.merge(b, -delta, Double::sum);
+            }
+        }
+        
+        for (PlayerRating old : before.values()) {
+            String id = old.getProfileId();
+            boolean won = id.equals(winnerId);
+            boolean draw = winnerId == null;
+            double rating = Math.max(0, Math.min(RatingIndex.MAX_RATING, old.getRating() + deltas.getOrDefault(id, 0.0)));
+            String username = players.stream()
+                    .filter(p -> profileId(p.getUsername()).equals(id))
+                    .map(PlayerSnapshot::getUsername)
+                    .findFirst()
+                    .orElse(old.getUsername());
+            put(new PlayerRating(id, username, rating, old.getGamesPlayed() + 1,
+                    old.getWins() + (won ? 1 : 0),
+                    old.getDraws() + (draw ? 1 : 0),
+                    old.getLosses() + (!won && !draw ? 1 : 0)));
+        }
+        scheduleFlush();
+    }
+    
+    /**
+     * Reemplaza el rating de un jugador en los índices (solo desde el hilo de escritura)
+     */
+    private void put(PlayerRating next) {
+        PlayerRating previous = ratings.put(next.getProfileId(), next);
+        if (previous != null && BY_RATING.compare(previous, next) == 0) {
+            // Mismo lugar en el orden: la skip list no admite duplicados
+            ranking.remove(previous);
+            ranking.add(next);
+            return;
+        }
+        // Agregar antes de quitar para que el jugador no desaparezca del top-K
+        ranking.add(next);
+        index.add(next.getRating());
+        if (previous != null) {
+            ranking.remove(previous);
+            index.remove(previous.getRating());
+        }
+    }
+    
+    private void scheduleFlush() {
+        if (!flushScheduled) {
+            flushScheduled = true;
+            writer.schedule(() -> {
+                flushScheduled = false;
+                save();
+            }, flushIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    /**
+     * Carga la tabla guardada al iniciar
+     */
+    @PostConstruct
+    public void load() {
+        Path path = Paths.get(file);
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] f = line.split("\t");
+                if (f.length == 7) {
+                    put(new PlayerRating(f[0], f[1], Double.parseDouble(f[2]), Long.parseLong(f[3]),
+                            Long.parseLong(f[4]), Long.parseLong(f[5]), Long.parseLong(f[6])));
+                }
+            }
+            log.info("🏅 Tabla de ratings cargada: {} jugadores", ratings.size());
+        } catch (IOException | NumberFormatException e) {
+            log.warn("No se pudo leer la tabla de ratings {}: {}", path, e.getMessage());
+        }
+    }
+    
+    /**
+     * Guarda la tabla completa (archivo temporal + renombrado atómico)
+     */
+    private void save() {
+        Path path = Paths.get(file).toAbsolutePath();
+        try {
+            Files.createDirectories(path.getParent());
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                for (PlayerRating r : ratings.values()) {
+                    out.write(clean(r.getProfileId()) + "\t" + clean(r.getUsername()) + "\t" + r.getRating()
+                            + "\t" + r.getGamesPlayed() + "\t" + r.getWins() + "\t" + r.getDraws()
+                            + "\t" + r.getLosses());
+                    out.newLine();
+                }
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("No se pudo guardar la tabla de ratings {}: {}", path, e.getMessage());
+        }
+    }
+    
+    private static String clean(String value) {
+        return value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+    
+    /**
+     * Aplica las actualizaciones pendientes y guarda antes de apagar
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        writer.execute(this::save);
+        writer.shutdown();
+        writer.awaitTermination(5, TimeUnit.SECONDS);
+    }
+}
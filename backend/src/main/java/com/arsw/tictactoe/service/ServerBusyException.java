@@ -0,0 +1,21 @@
+package com.arsw.tictactoe.service;
+
+/**
+ * El servidor rechaza el pedido para proteger a las partidas en curso;
+ * el cliente puede reintentar después de retryAfterSeconds
+ */
+public class ServerBusyException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private final long retryAfterSeconds;
+    
+    public ServerBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+    
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
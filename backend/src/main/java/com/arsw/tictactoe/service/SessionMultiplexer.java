@@ -0,0 +1,311 @@
+package com.arsw.tictactoe.service;
+
+import com.arsw.tictactoe.dto.GameMessage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Destino multiplexado por sesión (/user/queue/games) para clientes que
+ * siguen muchos juegos con una sola conexión
+ *
+ * Los eventos de todos los juegos de la sesión se juntan y salen en un solo
+ * frame por intervalo: {"games":{"<gameId>":[GameMessage, ...], ...}}, cada
+ * lista en el orden de la secuencia del juego. Cada vista de un evento se
+ * serializa una vez para todas las sesiones que la reciben y el frame se arma
+ * concatenando esos fragmentos.
+ *
+ * Solo se sigue a sesiones abiertas: la sesión nace con la conexión STOMP y
+ * un comando que llega después del cierre no la vuelve a crear.
+ */
+@Service
+public class SessionMultiplexer {
+    
+    private static final Logger log = LoggerFactory.getLogger(SessionMultiplexer.class);
+    
+    private static final String DESTINATION = "/queue/games";
+    private static final String SPECTATOR = "";
+    private static final byte[] FRAME_START = "{\"games\":{".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] FRAME_END = "}}".getBytes(StandardCharsets.UTF_8);
+    // Fuerza la conversión a JSON también para los textos (las claves del frame)
+    private static final MessageHeaders JSON = new MessageHeaders(
+            Map.of(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_JSON));
+    
+    @Value("${tictactoe.multiplex.flush-interval-ms:50}")
+    private long flushIntervalMs;
+    
+    @Value("${tictactoe.multiplex.max-games-per-session:200}")
+    private int maxGamesPerSession;
+    
+    @Value("${tictactoe.multiplex.max-frame-bytes:65536}")
+    private int maxFrameBytes;
+    
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+    
+    @Autowired
+    private GameViews views;
+    
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    // Sesiones que siguen cada juego
+    private final Map<String, Set<Session>> followers = new ConcurrentHashMap<>();
+    // Sesiones con eventos pendientes, cada una a lo sumo una vez
+    private final Queue<Session> dirty = new ConcurrentLinkedQueue<>();
+    
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "multiplex-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    @PostConstruct
+    public void start() {
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+    
+    @PreDestroy
+    public void stop() {
+        flusher.shutdownNow();
+    }
+    
+    /**
+     * Suma un juego a la sesión y encola su estado actual; debe llamarse con
+     * el buffer del juego bloqueado para que nada se cuele entre ambos
+     */
+    void attach(String sessionId, String gameId, String playerId, GameMessage state) {
+        Session session = sessions.get(sessionId);
+        if (session == null) {
+            return;
+        }
+        if (!session.games.containsKey(gameId) && session.games.size() >= maxGamesPerSession) {
+            reject(sessionId, gameId, "Máximo de " + maxGamesPerSession + " juegos por sesión");
+            return;
+        }
+        session.games.put(gameId, playerId == null ? SPECTATOR : playerId);
+        followers.compute(gameId, (id, current) -> {
+            Set<Session> set = current != null ? current : ConcurrentHashMap.newKeySet();
+            set.add(session);
+            return set;
+        });
+        if (session.closed) {
+            // Se cerró mientras la sumábamos: el cierre pudo no ver este juego
+            session.games.remove(gameId);
+            unfollow(gameId, session);
+            return;
+        }
+        enqueue(session, gameId, encode(state.withGame(views.viewFor(state.getGame(), playerId))));
+    }
+    
+    /**
+     * Encola un error para un juego de la sesión (ej: no existe)
+     */
+    public void reject(String sessionId, String gameId, String reason) {
+        Session session = sessions.get(sessionId);
+        if (session == null) {
+            return;
+        }
+        enqueue(session, gameId, encode(new GameMessage(GameMessage.MessageType.ERROR, null, reason, null)));
+    }
+    
+    /**
+     * Deja de seguir varios juegos
+     */
+    public void leave(String sessionId, Collection<String> gameIds) {
+        Session session = sessions.get(sessionId);
+        if (session == null || gameIds == null) {
+            return;
+        }
+        for (String gameId : gameIds) {
+            session.games.remove(gameId);
+            unfollow(gameId, session);
+        }
+    }
+    
+    /**
+     * Encola un evento para las sesiones que siguen el juego, serializando
+     * una vez cada vista; debe llamarse con el buffer del juego bloqueado
+     */
+    void offer(String gameId, GameMessage message) {
+        Set<Session> sessionsOfGame = followers.get(gameId);
+        if (sessionsOfGame == null || sessionsOfGame.isEmpty()) {
+            return;
+        }
+        Map<String, byte[]> encoded = new HashMap<>();
+        for (Session session : sessionsOfGame) {
+            String viewer = session.games.get(gameId);
+            if (viewer == null) {
+                continue;
+            }
+            byte[] json = encoded.computeIfAbsent(viewer, v ->
+                    encode(message.withGame(views.viewFor(message.getGame(), v.isEmpty() ? null : v))));
+            enqueue(session, gameId, json);
+        }
+    }
+    
+    /**
+     * Suelta las suscripciones a un juego eliminado
+     */
+    void forget(String gameId) {
+        Set<Session> removed = followers.remove(gameId);
+        if (removed != null) {
+            removed.forEach(session -> session.games.remove(gameId));
+        }
+    }
+    
+    @EventListener
+    public void onConnect(SessionConnectEvent event) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+        if (sessionId != null) {
+            sessions.computeIfAbsent(sessionId, Session::new);
+        }
+    }
+    
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Session session = sessions.remove(event.getSessionId());
+        if (session != null) {
+            session.closed = true;
+            session.pending.clear();
+            session.games.keySet().forEach(gameId -> unfollow(gameId, session));
+        }
+    }
+    
+    private void unfollow(String gameId, Session session) {
+        followers.computeIfPresent(gameId, (id, set) -> {
+            set.remove(session);
+            return set.isEmpty() ? null : set;
+        });
+    }
+    
+    private void enqueue(Session session, String gameId, byte[] json) {
+        session.pending.add(new Pending(gameId, json));
+        if (session.queued.compareAndSet(false, true)) {
+            dirty.add(session);
+        }
+    }
+    
+    private byte[] encode(Object payload) {
+        return (byte[]) messagingTemplate.getMessageConverter().toMessage(payload, JSON).getPayload();
+    }
+    
+    /**
+     * Envía un frame a cada sesión con eventos pendientes (hilo de envío)
+     */
+    private void flush() {
+        for (int n = dirty.size(); n > 0; n--) {
+            Session session = dirty.poll();
+            if (session == null) {
+                return;
+            }
+            session.queued.set(false);
+            if (session.closed) {
+                continue;
+            }
+            try {
+                drain(session);
+            } catch (RuntimeException e) {
+                log.warn("No se pudo enviar el frame multiplexado a {}: {}", session.id, e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Agrupa los pendientes por juego (sin reordenar dentro de cada juego) y
+     * corta en varios frames si superan el tamaño máximo
+     */
+    private void drain(Session session) {
+        Map<String, List<byte[]>> groups = new LinkedHashMap<>();
+        int size = 0;
+        Pending next;
+        while ((next = session.pending.poll()) != null) {
+            if (size > 0 && size + next.json.length > maxFrameBytes) {
+                send(session.id, frame(groups));
+                groups.clear();
+                size = 0;
+            }
+            groups.computeIfAbsent(next.gameId, id -> new ArrayList<>()).add(next.json);
+            size += next.json.length + 1;
+        }
+        if (!groups.isEmpty()) {
+            send(session.id, frame(groups));
+        }
+    }
+    
+    private byte[] frame(Map<String, List<byte[]>> groups) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+        out.writeBytes(FRAME_START);
+        boolean firstGame = true;
+        for (Map.Entry<String, List<byte[]>> group : groups.entrySet()) {
+            if (!firstGame) {
+                out.write(',');
+            }
+            firstGame = false;
+            out.writeBytes(encode(group.getKey()));
+            out.write(':');
+            out.write('[');
+            boolean firstEvent = true;
+            for (byte[] json : group.getValue()) {
+                if (!firstEvent) {
+                    out.write(',');
+                }
+                firstEvent = false;
+                out.writeBytes(json);
+            }
+            out.write(']');
+        }
+        out.writeBytes(FRAME_END);
+        return out.toByteArray();
+    }
+    
+    private void send(String sessionId, byte[] frame) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId(sessionId);
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        headers.setLeaveMutable(true);
+        messagingTemplate.send("/user/" + sessionId + DESTINATION, MessageBuilder.createMessage(frame, headers.getMessageHeaders()));
+    }
+    
+    /**
+     * Juegos seguidos y eventos pendientes de una sesión
+     */
+    private static class Session {
+        private final String id;
+        private final Map<String, String> games = new ConcurrentHashMap<>();   // gameId → playerId ("" = espectador)
+        private final Queue<Pending> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean queued = new AtomicBoolean();
+        private volatile boolean closed;
+        
+        Session(String id) {
+            this.id = id;
+        }
+    }
+    
+    private static class Pending {
+        private final String gameId;
+        private final byte[] json;
+        
+        Pending(String gameId, byte[] json) {
+            this.gameId = gameId;
+            this.json = json;
+        }
+    }
+}
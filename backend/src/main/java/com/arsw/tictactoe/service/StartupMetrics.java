@@ -0,0 +1,43 @@
+package com.arsw.tictactoe.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Mide el tiempo desde el arranque del proceso hasta que la aplicación
+ * acepta tráfico y hasta la primera jugada aceptada
+ */
+@Component
+public class StartupMetrics {
+    
+    private static final Logger log = LoggerFactory.getLogger(StartupMetrics.class);
+    
+    private final AtomicBoolean firstMoveRecorded = new AtomicBoolean();
+    private volatile long readyAtMs = -1;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        readyAtMs = uptimeMs();
+        log.info("⏱️ Aplicación lista a {} ms del arranque del proceso", readyAtMs);
+    }
+    
+    /**
+     * Registra una jugada aceptada; solo la primera se reporta
+     */
+    public void recordAcceptedMove() {
+        if (!firstMoveRecorded.get() && firstMoveRecorded.compareAndSet(false, true)) {
+            log.info("⏱️ Primera jugada aceptada a {} ms del arranque del proceso (aplicación lista a {} ms)",
+                    uptimeMs(), readyAtMs);
+        }
+    }
+    
+    private static long uptimeMs() {
+        return ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+}
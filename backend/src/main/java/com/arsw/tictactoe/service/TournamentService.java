@@ -0,0 +1,157 @@
+package com.arsw.tictactoe.service;
+
+import com.arsw.tictactoe.event.GameFinishedEvent;
+import com.arsw.tictactoe.model.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Servicio que organiza torneos sobre las partidas de {@link GameService}
+ *
+ * Crea y sienta las partidas de cada ronda, escucha el final de cada una y
+ * arma la siguiente ronda cuando terminó la última partida pendiente. Las
+ * partidas llevan reloj con pérdida por tiempo para que un jugador ausente
+ * no deje la ronda esperando.
+ */
+@Service
+public class TournamentService {
+    
+    @Value("${tictactoe.tournament.turn-time-ms:60000}")
+    private long turnTimeMs;   // 0 = sin límite
+    
+    @Autowired
+    private GameService gameService;
+    
+    // Torneos registrados
+    private final Map<String, Tournament> tournaments = new ConcurrentHashMap<>();
+    
+    // Índice gameId -> torneo de las partidas en curso
+    private final Map<String, Tournament> tournamentByGame = new ConcurrentHashMap<>();
+    
+    /**
+     * Crea un torneo con sus participantes
+     */
+    public Tournament createTournament(String name, TournamentFormat format, List<String> usernames, Integer rounds) {
+        if (usernames == null || usernames.size() < 2) {
+            throw new IllegalArgumentException("Se necesitan al menos 2 participantes");
+        }
+        
+        List<TournamentPlayer> participants = new ArrayList<>();
+        usernames.forEach(username -> participants.add(new TournamentPlayer(UUID.randomUUID().toString(), username)));
+        
+        TournamentFormat resolvedFormat = format != null ? format : TournamentFormat.SINGLE_ELIMINATION;
+        int totalRounds = rounds != null && resolvedFormat == TournamentFormat.SWISS
+                ? rounds : Tournament.roundsFor(participants.size());
+        
+        String tournamentId = UUID.randomUUID().toString().substring(0, 8);
+        Tournament tournament = new Tournament(tournamentId, name, resolvedFormat, participants, totalRounds);
+        tournaments.put(tournamentId, tournament);
+        return tournament;
+    }
+    
+    /**
+     * Obtiene un torneo por ID
+     */
+    public Optional<Tournament> getTournament(String tournamentId) {
+        return Optional.ofNullable(tournaments.get(tournamentId));
+    }
+    
+    /**
+     * Obtiene todos los torneos
+     */
+    public Collection<Tournament> getAllTournaments() {
+        return tournaments.values();
+    }
+    
+    /**
+     * Inicia la primera ronda de un torneo
+     */
+    public Tournament startTournament(String tournamentId) {
+        Tournament tournament = tournaments.get(tournamentId);
+        if (tournament == null) {
+            throw new IllegalArgumentException("Torneo no encontrado");
+        }
+        
+        synchronized (tournament) {
+            if (tournament.getStatus() != TournamentStatus.WAITING) {
+                throw new IllegalStateException("El torneo ya comenzó");
+            }
+            startNextRound(tournament);
+        }
+        return tournament;
+    }
+    
+    /**
+     * Crea y sienta las partidas de la siguiente ronda (con el torneo bloqueado)
+     */
+    private void startNextRound(Tournament tournament) {
+        Map<String, TournamentPlayer> players = new HashMap<>();
+        tournament.getParticipants().forEach(p -> players.put(p.getId(), p));
+        
+        List<Match> matches = new ArrayList<>();
+        for (Match pairing : tournament.pairNextRound()) {
+            if (pairing.isBye()) {
+                matches.add(pairing);
+                continue;
+            }
+            
+            String gameId = gameService.createGame(turnTimeMs, 0, TimeoutAction.FORFEIT).getGameId();
+            tournamentByGame.put(gameId, tournament);
+            matches.add(pairing.withGameId(gameId));
+        }
+        tournament.beginRound(matches);
+        
+        // Sentar a los jugadores una vez publicada la ronda: la partida arranca al llegar el segundo
+        for (Match match : matches) {
+            if (!match.isBye()) {
+                TournamentPlayer a = players.get(match.getPlayerAId());
+                TournamentPlayer b = players.get(match.getPlayerBId());
+                gameService.joinGame(match.getGameId(), a.getUsername(), a.getId());
+                gameService.joinGame(match.getGameId(), b.getUsername(), b.getId());
+            }
+        }
+    }
+    
+    /**
+     * Registra el resultado de una partida de torneo y avanza de ronda si corresponde
+     */
+    @EventListener
+    public void onGameFinished(GameFinishedEvent event) {
+        GameSnapshot game = event.getGame();
+        Tournament tournament = tournamentByGame.get(game.getGameId());
+        if (tournament == null) {
+            return;
+        }
+        
+        String winnerId = game.getWinner() == null ? null : game.getPlayers().stream()
+                .filter(p -> p.getSymbol().equals(game.getWinner()))
+                .map(PlayerSnapshot::getId)
+                .findFirst()
+                .orElse(null);
+        
+        Tournament.Outcome outcome = tournament.recordResult(game.getGameId(), winnerId);
+        if (outcome == Tournament.Outcome.REMATCH && gameService.restartGame(game.getGameId()) == null) {
+            // La partida ya no existe (se fueron los dos): el empate se resuelve sin revancha
+            outcome = tournament.recordResult(game.getGameId(), winnerId, false);
+        }
+        if (outcome == Tournament.Outcome.ROUND_COMPLETE) {
+            synchronized (tournament) {
+                tournament.getMatches().forEach(m -> {
+                    if (m.getGameId() != null) {
+                        tournamentByGame.remove(m.getGameId());
+                    }
+                });
+                if (tournament.hasNextRound()) {
+                    startNextRound(tournament);
+                } else {
+                    tournament.finish();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.arsw.tictactoe;
+
+import com.arsw.tictactoe.service.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+
+/**
+ * Contexto de Spring con los servicios del juego y un broker en memoria que
+ * guarda lo que se envía (sin servidor web ni WebSocket)
+ */
+public final class GameTestContext implements AutoCloseable {
+    
+    private final AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+    private final Queue<Message<?>> sent = new ConcurrentLinkedQueue<>();
+    private final MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
+    private final Path leaderboard;
+    
+    private GameTestContext(Map<String, Object> properties, Class<?>... extraBeans) {
+        try {
+            leaderboard = Files.createTempFile("leaderboard", ".tsv");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Map<String, Object> all = new HashMap<>();
+        all.put("tictactoe.leaderboard.file", leaderboard.toString());
+        all.putAll(properties);
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test", all));
+        
+        ExecutorSubscribableChannel channel = new ExecutorSubscribableChannel();
+        channel.subscribe(sent::add);
+        SimpMessagingTemplate template = new SimpMessagingTemplate(channel);
+        converter.getObjectMapper().findAndRegisterModules();
+        template.setMessageConverter(converter);
+        context.registerBean(SimpMessagingTemplate.class, () -> template);
+        
+        context.register(GameService.class, GameBroadcaster.class, HierarchicalTimingWheel.class, CommandSequencer.class,
+                GameChangeNotifier.class, GameAnalytics.class, RatingService.class, GameViews.class,
+                BoardLayoutPool.class, SessionMultiplexer.class, PlayerSessions.class);
+        if (extraBeans.length > 0) {
+            context.register(extraBeans);
+        }
+        context.refresh();
+    }
+    
+    public static GameTestContext start(Class<?>... extraBeans) {
+        return new GameTestContext(Map.of(), extraBeans);
+    }
+    
+    public static GameTestContext start(Map<String, Object> properties, Class<?>... extraBeans) {
+        return new GameTestContext(properties, extraBeans);
+    }
+    
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+    
+    public GameService games() {
+        return bean(GameService.class);
+    }
+    
+    /**
+     * Destinos de los mensajes enviados hasta ahora
+     */
+    public List<String> destinations() {
+        return sent.stream()
+                .map(message -> SimpMessageHeaderAccessor.getDestination(message.getHeaders()))
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Cuerpos de los mensajes enviados hasta ahora, leídos como type
+     */
+    public <T> List<T> payloads(Class<T> type) {
+        return sent.stream()
+                .map(message -> type.cast(converter.fromMessage(message, type)))
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Simula la conexión de una sesión STOMP
+     */
+    public void connect(String sessionId) {
+        context.publishEvent(new SessionConnectEvent(this, stompFrame(StompCommand.CONNECT, sessionId)));
+    }
+    
+    /**
+     * Simula el cierre de una sesión STOMP
+     */
+    public void disconnect(String sessionId) {
+        context.publishEvent(new SessionDisconnectEvent(this, stompFrame(StompCommand.DISCONNECT, sessionId),
+                sessionId, CloseStatus.NORMAL));
+    }
+    
+    private static Message<byte[]> stompFrame(StompCommand command, String sessionId) {
+        StompHeaderAccessor headers = StompHeaderAccessor.create(command);
+        headers.setSessionId(sessionId);
+        return MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+    }
+    
+    public Queue<Message<?>> sent() {
+        return sent;
+    }
+    
+    @Override
+    public void close() {
+        context.close();
+        try {
+            Files.deleteIfExists(leaderboard);
+        } catch (IOException ignored) {
+            // Archivo temporal
+        }
+    }
+}
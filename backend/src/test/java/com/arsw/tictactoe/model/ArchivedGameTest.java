@@ -0,0 +1,49 @@
+package com.arsw.tictactoe.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArchivedGameTest {
+    
+    @Test
+    void finishedGameRoundTrips() {
+        Game game = new Game("g1", BoardLayout.EMPTY);
+        game.addPlayer(new Player("a", "ana", "X"));
+        game.addPlayer(new Player("b", "bob", "O"));
+        for (int position : new int[]{0, 3, 1, 4, 2}) {
+            assertTrue(game.makeMove(game.getCurrentPlayer().getId(), position).isSuccess());
+        }
+        GameSnapshot snapshot = game.publishSnapshot();
+        assertEquals(GameStatus.FINISHED, snapshot.getStatus());
+        
+        assertEquals(snapshot, ArchivedGame.of(snapshot).toSnapshot());
+    }
+    
+    @Test
+    void everyFieldRoundTrips() {
+        // Celdas especiales, poderes, reloj, efectos pendientes, textos no ASCII y valores null
+        Game game = new Game("ñandú-7", BoardLayout.random(new Random(3)));
+        game.configureClock(15_000, 120_000, TimeoutAction.SKIP_TURN);
+        game.addPlayer(new Player("a", "Ana 🏆", "X"));
+        game.addPlayer(new Player("b", "bob", "O"));
+        game.addPlayer(new Player("c", "carla", "△"));
+        game.getPlayers().get(1).addPower(PowerType.SWAP_PIECES);
+        game.getPlayers().get(1).addPower(PowerType.TRIPLE_PLAY);
+        for (int position = 0; position < 9 && game.getBoard().stream().noneMatch(Cell::isOccupied); position++) {
+            game.makeMove(game.getCurrentPlayer().getId(), position);
+        }
+        game.blockCell(8, 2);
+        GameSnapshot snapshot = game.publishSnapshot();
+        assertFalse(snapshot.getPendingEffects().isEmpty());
+        assertNull(snapshot.getWinner());
+        
+        ArchivedGame archive = ArchivedGame.of(snapshot);
+        
+        assertEquals("ñandú-7", archive.getGameId());
+        assertEquals(snapshot, archive.toSnapshot());
+        assertTrue(archive.size() < 1024);
+    }
+}
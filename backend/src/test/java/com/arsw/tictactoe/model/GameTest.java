@@ -0,0 +1,124 @@
+package com.arsw.tictactoe.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameTest {
+    
+    private static Game twoPlayerGame(TimeoutAction timeoutAction) {
+        Game game = new Game("g1", BoardLayout.EMPTY);
+        game.configureClock(1000, 0, timeoutAction);
+        game.addPlayer(new Player("a", "ana", "X"));
+        game.addPlayer(new Player("b", "bob", "O"));
+        return game;
+    }
+    
+    @ParameterizedTest
+    @EnumSource(TimeoutAction.class)
+    void opponentLeavingFinishesTheGame(TimeoutAction timeoutAction) {
+        Game game = twoPlayerGame(timeoutAction);
+        
+        game.removePlayer("b");
+        
+        assertEquals(GameStatus.FINISHED, game.getStatus());
+        assertEquals("X", game.getWinner());
+        assertEquals(0, game.getTurnDeadline());
+        assertEquals(1, game.getPlayers().get(0).getScore());
+    }
+    
+    @Test
+    void playerOnTurnLeavingGivesTheWinToTheOther() {
+        Game game = twoPlayerGame(TimeoutAction.SKIP_TURN);
+        
+        game.removePlayer("a");
+        
+        assertEquals(GameStatus.FINISHED, game.getStatus());
+        assertEquals("O", game.getWinner());
+        assertEquals(0, game.getCurrentPlayerIndex());
+    }
+    
+    @ParameterizedTest
+    @EnumSource(TimeoutAction.class)
+    void timeoutWithASinglePlayerFinishesInsteadOfFailing(TimeoutAction timeoutAction) {
+        // Estado de antes del arreglo: partida activa con un solo jugador
+        Game game = twoPlayerGame(timeoutAction);
+        game.getPlayers().remove(1);
+        
+        assertDoesNotThrow(game::timeOutCurrentPlayer);
+        
+        assertEquals(GameStatus.FINISHED, game.getStatus());
+        assertEquals(1, game.getPlayers().size());
+        assertEquals(0, game.getTurnDeadline());
+    }
+    
+    @Test
+    void leavingAGameWithThreePlayersKeepsItGoing() {
+        Game game = twoPlayerGame(TimeoutAction.SKIP_TURN);
+        game.addPlayer(new Player("c", "carla", "△"));
+        
+        game.removePlayer("a");
+        
+        assertEquals(GameStatus.ACTIVE, game.getStatus());
+        assertEquals("b", game.getCurrentPlayer().getId());
+        assertTrue(game.getTurnDeadline() > 0);
+    }
+    
+    @Test
+    void fakePieceDisappearsTwoTurnsLaterAndOnlyOnce() {
+        Game game = twoPlayerGame(TimeoutAction.SKIP_TURN);
+        Cell fake = game.getBoard().get(0);
+        fake.setType(CellType.FAKE);
+        
+        game.makeMove("a", 0);
+        assertEquals("X", fake.getValue());   // Sigue durante el turno de bob
+        game.makeMove("b", 8);
+        
+        assertNull(fake.getValue());
+        assertEquals(CellType.NORMAL, fake.getType());
+        assertTrue(fake.isRevealed());
+        
+        // La celda ya es normal: la siguiente pieza se queda
+        game.makeMove("a", 0);
+        game.makeMove("b", 7);
+        game.makeMove("a", 1);
+        assertEquals("X", fake.getValue());
+        assertTrue(game.publishSnapshot().getPendingEffects().isEmpty());
+    }
+    
+    @Test
+    void blockedCellOpensOnTheDueTurn() {
+        Game game = twoPlayerGame(TimeoutAction.SKIP_TURN);
+        Cell cell = game.getBoard().get(4);
+        game.blockCell(4, 2);
+        
+        game.nextPlayer();
+        assertTrue(cell.isBlocked());
+        assertFalse(cell.isPlayable());
+        game.nextPlayer();
+        
+        assertFalse(cell.isBlocked());
+        assertEquals(0, cell.getBlockedUntilTurn());
+        assertTrue(cell.isPlayable());
+    }
+    
+    @Test
+    void restoreDropsEffectsScheduledAfterTheSnapshot() {
+        Game game = twoPlayerGame(TimeoutAction.SKIP_TURN);
+        game.getBoard().get(0).setType(CellType.FAKE);
+        GameSnapshot before = game.publishSnapshot();
+        
+        // Lote que falla a mitad de camino: bloqueo y pieza falsa ya aplicados
+        game.blockCell(4, 2);
+        game.makeMove("a", 0);
+        game.restore(before);
+        
+        assertTrue(game.publishSnapshot().getPendingEffects().isEmpty());
+        assertFalse(game.getBoard().get(4).isBlocked());
+        assertEquals(CellType.FAKE, game.getBoard().get(0).getType());
+        assertNull(game.getBoard().get(0).getValue());
+        assertEquals("a", game.getCurrentPlayer().getId());
+    }
+}
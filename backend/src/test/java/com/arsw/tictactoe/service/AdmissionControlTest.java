@@ -0,0 +1,157 @@
+package com.arsw.tictactoe.service;
+
+import com.arsw.tictactoe.GameTestContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControlTest {
+    
+    private static final int MAX_SESSIONS = 50;
+    private static final int THREADS = 8;
+    
+    private GameTestContext context;
+    private AdmissionControl admission;
+    
+    @BeforeEach
+    void setUp() {
+        context = GameTestContext.start(Map.of("tictactoe.admission.max-sessions", MAX_SESSIONS), AdmissionControl.class);
+        admission = context.bean(AdmissionControl.class);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+    
+    @Test
+    void concurrentConnectionsNeverExceedTheSessionLimit() throws Exception {
+        AtomicInteger admitted = new AtomicInteger();
+        runConcurrently(i -> {
+            if (admission.admitSession("s" + i)) {
+                admitted.incrementAndGet();
+            }
+        }, MAX_SESSIONS * 20);
+        
+        assertEquals(MAX_SESSIONS, admitted.get());
+        assertEquals(MAX_SESSIONS, admission.getStats().getSessions());
+        assertEquals(MAX_SESSIONS * 19, admission.getStats().getRejectedSessions());
+    }
+    
+    @Test
+    void closingSessionsFreesTheirPlaces() throws Exception {
+        for (int i = 0; i < MAX_SESSIONS; i++) {
+            assertTrue(admission.admitSession("s" + i));
+        }
+        assertFalse(admission.admitSession("extra"));
+        
+        // Cierres de sesiones admitidas, de una rechazada y repetidos, en paralelo con conexiones nuevas
+        Set<String> admitted = ConcurrentHashMap.newKeySet();
+        runConcurrently(i -> {
+            if (i % 2 == 0) {
+                admission.sessionClosed("s" + (i / 2 % MAX_SESSIONS));
+                admission.sessionClosed("extra");
+            } else if (admission.admitSession("n" + i)) {
+                admitted.add("n" + i);
+            }
+        }, MAX_SESSIONS * 4);
+        
+        assertEquals(admitted.size(), admission.getStats().getSessions());
+        assertTrue(admitted.size() <= MAX_SESSIONS);
+        String any = admitted.iterator().next();
+        assertTrue(admission.admitSession(any));   // Ya admitida: no cuenta dos veces
+        assertEquals(admitted.size(), admission.getStats().getSessions());
+    }
+    
+    @Test
+    void slowMovesLowerTheGameLimitAndItRecovers() {
+        context.close();
+        // Sin limitador programado: el test llama a adjust() en lugar del intervalo
+        context = GameTestContext.start(Map.of("tictactoe.admission.max-games", 1000, "tictactoe.admission.min-games", 10,
+                "tictactoe.admission.sample-interval-ms", 3_600_000), AdmissionControl.class);
+        admission = context.bean(AdmissionControl.class);
+        GameService games = context.games();
+        for (int i = 0; i < 200; i++) {
+            games.createGame();
+        }
+        
+        // p90 por encima de 50 ms con latencia 4 veces el objetivo: el límite baja a la mitad de los juegos activos
+        recordMoves(100, 200);
+        admission.adjust();
+        assertEquals(100, admission.getStats().getGameLimit());
+        assertEquals(200, admission.getStats().getMoveLatencyMs());
+        assertThrows(ServerBusyException.class, admission::admitGame);
+        assertEquals(1, admission.getStats().getRejectedGames());
+        
+        // Latencia dentro del objetivo: vuelve a subir de a poco (raíz del límite por intervalo)
+        recordMoves(100, 10);
+        admission.adjust();
+        assertEquals(110, admission.getStats().getGameLimit());
+        
+        // Sin muestras suficientes también sube, sin tocar la última latencia medida
+        recordMoves(5, 500);
+        admission.adjust();
+        assertEquals(120, admission.getStats().getGameLimit());
+        assertEquals(10, admission.getStats().getMoveLatencyMs());
+    }
+    
+    @Test
+    void gameLimitNeverDropsBelowTheMinimum() {
+        context.close();
+        context = GameTestContext.start(Map.of("tictactoe.admission.max-games", 1000, "tictactoe.admission.min-games", 10,
+                "tictactoe.admission.sample-interval-ms", 3_600_000), AdmissionControl.class);
+        admission = context.bean(AdmissionControl.class);
+        for (int i = 0; i < 5; i++) {
+            context.games().createGame();
+        }
+        
+        for (int round = 0; round < 3; round++) {
+            recordMoves(100, 1000);
+            admission.adjust();
+        }
+        
+        assertEquals(10, admission.getStats().getGameLimit());
+        assertDoesNotThrow(admission::admitGame);
+    }
+    
+    private void recordMoves(int count, long latencyMs) {
+        for (int i = 0; i < count; i++) {
+            admission.recordMove(latencyMs);
+        }
+    }
+    
+    private static void runConcurrently(IntTask task, int count) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int n = i;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    task.run(n);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+    
+    private interface IntTask {
+        void run(int i);
+    }
+}
@@ -0,0 +1,97 @@
+package com.arsw.tictactoe.service;
+
+import com.arsw.tictactoe.GameTestContext;
+import com.arsw.tictactoe.dto.BranchRequest;
+import com.arsw.tictactoe.model.AnalysisSession;
+import com.arsw.tictactoe.model.BranchResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalysisServiceTest {
+    
+    private static final int MAX_NODES = 101;   // La raíz y 100 ramas
+    
+    private GameTestContext context;
+    private AnalysisService analysis;
+    private String gameId;
+    
+    @BeforeEach
+    void setUp() {
+        context = GameTestContext.start(Map.of("tictactoe.analysis.max-nodes-per-session", MAX_NODES,
+                "tictactoe.analysis.threads", 2), AnalysisService.class);
+        analysis = context.bean(AnalysisService.class);
+        gameId = context.games().createGame().getGameId();
+        context.games().joinGame(gameId, "ana");
+        context.games().joinGame(gameId, "bob");
+    }
+    
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+    
+    @Test
+    void concurrentBranchesNeverExceedTheNodeLimit() throws Exception {
+        AnalysisSession session = analysis.open(gameId, 0, null);
+        AtomicInteger opened = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+        
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        // Dos ramas por pedido: se evalúan en el pool del análisis
+                        opened.addAndGet(analysis.branch(session.getSessionId(), List.of(sameSpot(), sameSpot())).size());
+                    } catch (IllegalArgumentException e) {
+                        refused.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        
+        assertEquals(MAX_NODES - 1, opened.get());
+        assertEquals(MAX_NODES, session.getNodeCount());
+        assertEquals(400 - (MAX_NODES - 1) / 2, refused.get());
+    }
+    
+    @Test
+    void failedBranchesGiveBackTheirPlace() {
+        AnalysisSession session = analysis.open(gameId, 0, null);
+        
+        for (int i = 0; i < MAX_NODES * 2; i++) {
+            BranchResult result = analysis.branch(session.getSessionId(),
+                    List.of(new BranchRequest("no-existe", null, List.of()))).get(0);
+            assertFalse(result.isSuccess());
+        }
+        for (int i = 1; i < MAX_NODES; i++) {
+            assertTrue(analysis.branch(session.getSessionId(), List.of(sameSpot())).get(0).isSuccess());
+        }
+        
+        assertEquals(MAX_NODES, session.getNodeCount());
+        assertThrows(IllegalArgumentException.class, () -> analysis.branch(session.getSessionId(), List.of(sameSpot())));
+    }
+    
+    private static BranchRequest sameSpot() {
+        return new BranchRequest("0", null, List.of());
+    }
+}
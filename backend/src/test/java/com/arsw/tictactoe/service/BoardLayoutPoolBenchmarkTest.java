@@ -0,0 +1,124 @@
+package com.arsw.tictactoe.service;
+
+import com.arsw.tictactoe.GameTestContext;
+import com.arsw.tictactoe.model.BoardLayout;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.IntSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmark de la reserva de distribuciones: latencia de tomar una de la
+ * reserva contra sortearla en el hilo del juego, y de crear y reiniciar
+ * juegos con varios hilos a la vez
+ */
+class BoardLayoutPoolBenchmarkTest {
+    
+    private static final Logger log = LoggerFactory.getLogger(BoardLayoutPoolBenchmarkTest.class);
+    
+    private static final int THREADS = 4;
+    private static final int SAMPLES = 200_000;
+    private static final int RESERVED = 2048;      // Tomas medidas con la reserva llena
+    private static final int GAMES_PER_THREAD = 5_000;
+    
+    private static volatile int blackhole;
+    
+    private GameTestContext context;
+    private BoardLayoutPool pool;
+    private GameService games;
+    
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        context = GameTestContext.start();
+        pool = context.bean(BoardLayoutPool.class);
+        games = context.games();
+        awaitRefill();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+    
+    @Test
+    void measuresClaimAndCreateLatency() throws Exception {
+        // Calentar ambos caminos antes de medir
+        latencies(() -> BoardLayout.random(ThreadLocalRandom.current()), SAMPLES);
+        latencies(pool::claim, SAMPLES / 4);
+        awaitRefill();
+        
+        long[] inline = latencies(() -> BoardLayout.random(ThreadLocalRandom.current()), RESERVED);
+        long missesBefore = pool.misses();
+        long[] claimed = latencies(pool::claim, RESERVED);
+        long misses = pool.misses() - missesBefore;
+        
+        log.info(String.format("sorteo en el hilo:    p50 %5d ns  p99 %6d ns", percentile(inline, 0.5), percentile(inline, 0.99)));
+        log.info(String.format("tomada de la reserva: p50 %5d ns  p99 %6d ns  (%.1f%% vacía)",
+                percentile(claimed, 0.5), percentile(claimed, 0.99), 100.0 * misses / RESERVED));
+        
+        double opsPerSecond;
+        long start = System.nanoTime();
+        long createMisses = pool.misses();
+        ExecutorService creators = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(creators.submit(() -> latencies(() -> {
+                    String id = games.createGame().getGameId();
+                    games.restartGame(id);
+                    return 0;
+                }, GAMES_PER_THREAD)));
+            }
+            List<long[]> all = new ArrayList<>();
+            for (Future<long[]> future : futures) {
+                all.add(future.get());
+            }
+            opsPerSecond = THREADS * GAMES_PER_THREAD / ((System.nanoTime() - start) / 1e9);
+            long[] merged = all.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+            log.info(String.format("crear + reiniciar (%d hilos): %,8.0f ops/s  p50 %6d ns  p99 %7d ns  (%.1f%% vacía)",
+                    THREADS, opsPerSecond, percentile(merged, 0.5), percentile(merged, 0.99),
+                    100.0 * (pool.misses() - createMisses) / (2.0 * THREADS * GAMES_PER_THREAD)));
+        } finally {
+            creators.shutdownNow();
+        }
+        
+        assertTrue(opsPerSecond > 0);
+        assertEquals(THREADS * GAMES_PER_THREAD, games.getActiveGameCount());
+    }
+    
+    private void awaitRefill() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pool.available() < RESERVED && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+    
+    /**
+     * Tiempo de cada llamada, ordenado
+     */
+    private static long[] latencies(IntSupplier operation, int samples) {
+        long[] times = new long[samples];
+        int sink = 0;
+        for (int i = 0; i < samples; i++) {
+            long start = System.nanoTime();
+            sink += operation.getAsInt();
+            times[i] = System.nanoTime() - start;
+        }
+        blackhole = sink;   // Que el JIT no descarte las llamadas
+        Arrays.sort(times);
+        return times;
+    }
+    
+    private static long percentile(long[] sorted, double fraction) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * fraction))];
+    }
+}
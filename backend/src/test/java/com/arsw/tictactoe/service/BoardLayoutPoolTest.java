@@ -0,0 +1,96 @@
+package com.arsw.tictactoe.service;
+
+import com.arsw.tictactoe.GameTestContext;
+import com.arsw.tictactoe.model.BoardLayout;
+import com.arsw.tictactoe.model.CellType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoardLayoutPoolTest {
+    
+    private static final int THREADS = 8;
+    private static final int CLAIMS_PER_THREAD = 50_000;
+    
+    private GameTestContext context;
+    private BoardLayoutPool pool;
+    
+    @BeforeEach
+    void setUp() {
+        // Anillo chico (64 ranuras, lotes de 32) para que productor y consumidores se crucen seguido
+        context = GameTestContext.start(Map.of("tictactoe.layouts.pool-size", 64, "tictactoe.layouts.batch-size", 4));
+        pool = context.bean(BoardLayoutPool.class);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+    
+    @Test
+    void concurrentClaimsOnlyReturnValidLayouts() throws Exception {
+        LongAdder invalid = new LongAdder();
+        ExecutorService claimers = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(claimers.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < CLAIMS_PER_THREAD; i++) {
+                        if (!valid(pool.claim())) {
+                            invalid.increment();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            claimers.shutdownNow();
+        }
+        
+        // Una ranura leída antes de que el productor la llene daría un tablero sin celdas especiales
+        assertEquals(0, invalid.sum());
+        assertTrue(pool.available() <= 64);
+    }
+    
+    @Test
+    void refillsAfterBeingDrained() throws InterruptedException {
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(valid(pool.claim()));
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pool.available() < 32 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        long misses = pool.misses();
+        
+        for (int i = 0; i < 32; i++) {
+            assertTrue(valid(pool.claim()));
+        }
+        
+        assertEquals(misses, pool.misses());
+    }
+    
+    private static boolean valid(int layout) {
+        int special = 0;
+        for (int position = 0; position < 9; position++) {
+            if (BoardLayout.typeAt(layout, position) != CellType.NORMAL) {
+                special++;
+            }
+        }
+        return special >= 3 && special <= 5 && layout >>> 27 == 0;
+    }
+}
@@ -0,0 +1,112 @@
+package com.arsw.tictactoe.service;
+
+import com.arsw.tictactoe.GameTestContext;
+import com.arsw.tictactoe.dto.CommandAck;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandSequencerTest {
+    
+    private GameTestContext context;
+    private CommandSequencer sequencer;
+    private final List<Long> applied = Collections.synchronizedList(new ArrayList<>());
+    
+    @BeforeEach
+    void setUp() {
+        context = GameTestContext.start();
+        sequencer = context.bean(CommandSequencer.class);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+    
+    private Supplier<CommandAck> command(long sequence) {
+        return () -> {
+            applied.add(sequence);
+            return new CommandAck("g", "p", sequence, true, false, "ok", 0);
+        };
+    }
+    
+    @Test
+    void outOfOrderArrivalWaitsForTheFirstCommand() {
+        sequencer.submit("g", "p", "s1", 2, 0, command(2));
+        assertTrue(applied.isEmpty());
+        
+        sequencer.submit("g", "p", "s1", 1, 0, command(1));
+        
+        assertEquals(List.of(1L, 2L), applied);
+        assertTrue(acks().stream().noneMatch(CommandAck::isDuplicate));
+        assertEquals(List.of("/user/s1/queue/commands", "/user/s1/queue/commands"), context.destinations());
+    }
+    
+    @Test
+    void forgottenWindowResumesFromTheClientsFirstUnconfirmedCommand() {
+        sequencer.submit("g", "p", "s1", 1, 1, command(1));
+        sequencer.forget("g");
+        
+        // El cliente siguió numerando: 40 y 41 sin confirmar, llegan al revés
+        sequencer.submit("g", "p", "s1", 41, 40, command(41));
+        sequencer.submit("g", "p", "s1", 40, 40, command(40));
+        
+        assertEquals(List.of(1L, 40L, 41L), applied);
+    }
+    
+    @Test
+    void retriesAreConfirmedWithoutApplyingTwice() {
+        sequencer.submit("g", "p", "s1", 1, 1, command(1));
+        sequencer.submit("g", "p", "s1", 1, 1, command(1));
+        
+        assertEquals(List.of(1L), applied);
+        List<CommandAck> acks = acks();
+        assertEquals(2, acks.size());
+        assertFalse(acks.get(0).isDuplicate());
+        assertTrue(acks.get(1).isDuplicate());
+    }
+    
+    @Test
+    void concurrentShuffledSubmissionsApplyOnceInOrder() throws Exception {
+        List<Long> sequences = new ArrayList<>();
+        for (long i = 1; i <= 30; i++) {
+            sequences.add(i);
+            sequences.add(i);  // Cada comando llega dos veces (reintento)
+        }
+        Collections.shuffle(sequences);
+        
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Callable<Void>> tasks = sequences.stream()
+                    .map(sequence -> (Callable<Void>) () -> {
+                        sequencer.submit("g", "p", "s1", sequence, 1, command(sequence));
+                        return null;
+                    })
+                    .collect(Collectors.toList());
+            for (Future<Void> task : pool.invokeAll(tasks)) {
+                task.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        
+        List<Long> expected = new ArrayList<>();
+        for (long i = 1; i <= 30; i++) {
+            expected.add(i);
+        }
+        assertEquals(expected, applied);
+    }
+    
+    private List<CommandAck> acks() {
+        return context.payloads(CommandAck.class);
+    }
+}
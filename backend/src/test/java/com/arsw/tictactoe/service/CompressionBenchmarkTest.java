@@ -0,0 +1,149 @@
+package com.arsw.tictactoe.service;
+
+import com.arsw.tictactoe.GameTestContext;
+import com.arsw.tictactoe.dto.GameMessage;
+import com.arsw.tictactoe.model.GameSnapshot;
+import com.arsw.tictactoe.model.GameStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+
+import java.util.*;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmark de permessage-deflate sobre tráfico generado jugando partidas:
+ * bytes por frame contra CPU por frame, comprimiendo cada mensaje por
+ * separado o compartiendo el contexto entre los mensajes de una conexión
+ * (context takeover, lo que negocia Tomcat)
+ */
+class CompressionBenchmarkTest {
+    
+    private static final Logger log = LoggerFactory.getLogger(CompressionBenchmarkTest.class);
+    
+    private static final int CONNECTIONS = 100;
+    private static final int FRAMES_PER_CONNECTION = 60;
+    private static final int ROUNDS = 3;
+    
+    private final Random random = new Random(11);
+    private final byte[] buffer = new byte[1 << 16];
+    private GameTestContext context;
+    private GameService games;
+    private GameBroadcaster broadcaster;
+    
+    @BeforeEach
+    void setUp() {
+        context = GameTestContext.start();
+        games = context.games();
+        broadcaster = context.bean(GameBroadcaster.class);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+    
+    @Test
+    void contextTakeoverTradesLittleCpuForMostOfTheBandwidth() {
+        List<List<byte[]>> traffic = new ArrayList<>(CONNECTIONS);
+        for (int i = 0; i < CONNECTIONS; i++) {
+            traffic.add(play());
+        }
+        long frames = traffic.stream().mapToLong(List::size).sum();
+        
+        long[] bytes = new long[3];
+        double[] micros = new double[3];
+        for (int round = 0; round < ROUNDS; round++) {   // La última vuelta, ya con el JIT caliente
+            for (int mode = 0; mode < 3; mode++) {
+                long start = System.nanoTime();
+                bytes[mode] = compress(traffic, mode);
+                micros[mode] = (System.nanoTime() - start) / 1e3 / frames;
+            }
+        }
+        
+        String[] names = {"sin compresión", "por mensaje", "context takeover"};
+        for (int mode = 0; mode < 3; mode++) {
+            log.info(String.format("%-18s %6d B/frame (%5.1f%%)  %6.1f us/frame", names[mode],
+                    bytes[mode] / frames, 100.0 * bytes[mode] / bytes[0], micros[mode]));
+        }
+        assertTrue(bytes[1] < bytes[0]);
+        assertTrue(bytes[2] < bytes[1]);
+    }
+    
+    /**
+     * Juega una partida (reiniciándola al terminar) y devuelve los frames que
+     * recibe un espectador, en orden
+     */
+    private List<byte[]> play() {
+        String gameId = games.createGame().getGameId();
+        games.joinGame(gameId, "ana");
+        games.joinGame(gameId, "bob");
+        String topic = "/topic/game/" + gameId;
+        context.sent().clear();
+        
+        int broadcasts = 0;
+        while (broadcasts < FRAMES_PER_CONNECTION) {
+            GameSnapshot game = games.getSnapshot(gameId).orElseThrow();
+            if (game.getStatus() != GameStatus.ACTIVE) {
+                games.restartGame(gameId);
+                continue;
+            }
+            if (games.makeMove(gameId, game.getCurrentPlayer().getId(), random.nextInt(9)).isSuccess()) {
+                broadcaster.broadcast(gameId, new GameMessage(GameMessage.MessageType.MOVE_MADE,
+                        games.getSnapshot(gameId).orElseThrow(), "Jugada", null));
+                broadcasts++;
+            }
+        }
+        
+        List<byte[]> frames = new ArrayList<>(FRAMES_PER_CONNECTION);
+        for (Message<?> message : context.sent()) {
+            if (topic.equals(SimpMessageHeaderAccessor.getDestination(message.getHeaders()))) {
+                frames.add((byte[]) message.getPayload());
+            }
+        }
+        return frames;
+    }
+    
+    /**
+     * Bytes en el cable: 0 = sin comprimir, 1 = un compresor por mensaje,
+     * 2 = un compresor por conexión
+     */
+    private long compress(List<List<byte[]>> traffic, int mode) {
+        long total = 0;
+        for (List<byte[]> connection : traffic) {
+            Deflater shared = mode == 2 ? new Deflater(Deflater.DEFAULT_COMPRESSION, true) : null;
+            for (byte[] frame : connection) {
+                if (mode == 0) {
+                    total += frame.length;
+                } else if (mode == 1) {
+                    Deflater single = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+                    total += deflate(single, frame);
+                    single.end();
+                } else {
+                    total += deflate(shared, frame);
+                }
+            }
+            if (shared != null) {
+                shared.end();
+            }
+        }
+        return total;
+    }
+    
+    private int deflate(Deflater deflater, byte[] frame) {
+        deflater.setInput(frame);
+        int total = 0;
+        int n;
+        do {
+            n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+            total += n;
+        } while (n == buffer.length);
+        return total - 4;   // RFC 7692: sin el 00 00 ff ff del final
+    }
+}
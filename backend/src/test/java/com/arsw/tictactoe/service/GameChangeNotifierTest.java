@@ -0,0 +1,158 @@
+package com.arsw.tictactoe.service;
+
+import com.arsw.tictactoe.GameTestContext;
+import com.arsw.tictactoe.dto.GameDelta;
+import com.arsw.tictactoe.model.*;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameChangeNotifierTest {
+    
+    private GameTestContext context;
+    private GameService games;
+    private GameChangeNotifier notifier;
+    private String gameId;
+    private Player ana;
+    
+    @BeforeEach
+    void setUp() {
+        context = GameTestContext.start();
+        games = context.games();
+        notifier = context.bean(GameChangeNotifier.class);
+        gameId = games.createGame().getGameId();
+        ana = games.joinGame(gameId, "ana");
+        games.joinGame(gameId, "bob");
+    }
+    
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+    
+    @Test
+    void parkedPollGetsOnlyTheChanges() throws Exception {
+        GameSnapshot before = current();
+        DeferredResult<GameDelta> result = poll(before.getVersion());
+        assertFalse(result.hasResult());
+        assertEquals(1, notifier.waitingCount());
+        
+        int position = play(ana.getId());
+        GameSnapshot after = current();
+        
+        GameDelta delta = await(result);
+        assertNull(delta.getSnapshot());
+        assertEquals(before.getVersion(), delta.getFromVersion());
+        assertEquals(after.getVersion(), delta.getVersion());
+        assertTrue(delta.getCells().stream().anyMatch(cell -> cell.getPosition() == position));
+        assertEquals(after.getGameLog().subList(before.getGameLog().size(), after.getGameLog().size()), delta.getLog());
+        assertEquals(after.getCurrentPlayerIndex(), delta.getCurrentPlayerIndex());
+        assertEquals(0, notifier.waitingCount());
+    }
+    
+    @Test
+    void staleVersionIsAnsweredRightAway() {
+        long known = current().getVersion();
+        play(ana.getId());
+        
+        DeferredResult<GameDelta> result = poll(known);
+        
+        assertTrue(result.hasResult());
+        assertEquals(current().getVersion(), ((GameDelta) result.getResult()).getVersion());
+        assertEquals(0, notifier.waitingCount());
+    }
+    
+    @Test
+    void timeoutAnswersUnchangedAndReleasesTheWait() throws Exception {
+        GameSnapshot latest = current();
+        DeferredResult<GameDelta> result = poll(latest.getVersion());
+        MockAsyncContext async = startAsync(result);
+        
+        for (AsyncListener listener : async.getListeners()) {
+            listener.onTimeout(new AsyncEvent(async));
+        }
+        for (AsyncListener listener : async.getListeners()) {
+            listener.onComplete(new AsyncEvent(async));
+        }
+        
+        GameDelta delta = (GameDelta) result.getResult();
+        assertEquals(latest.getVersion(), delta.getFromVersion());
+        assertEquals(latest.getVersion(), delta.getVersion());
+        assertNull(delta.getSnapshot());
+        assertTrue(delta.getCells().isEmpty());
+        assertTrue(delta.getLog().isEmpty());
+        assertEquals(0, notifier.waitingCount());
+    }
+    
+    @Test
+    void restartSendsTheFullSnapshot() throws Exception {
+        play(ana.getId());
+        GameSnapshot finished = current();
+        DeferredResult<GameDelta> result = poll(finished.getVersion());
+        
+        games.restartGame(gameId);
+        GameSnapshot restarted = current();
+        
+        // Las versiones siguen contando, pero no hay delta posible contra el juego anterior
+        assertTrue(restarted.getVersion() > finished.getVersion());
+        GameDelta delta = await(result);
+        assertNotNull(delta.getSnapshot());
+        assertNull(delta.getCells());
+        assertNull(delta.getLog());
+        assertEquals(restarted.getVersion(), delta.getSnapshot().getVersion());
+        assertEquals(restarted.getGameLog(), delta.getSnapshot().getGameLog());
+        assertTrue(delta.getSnapshot().getBoard().stream().allMatch(cell -> cell.getValue() == null));
+    }
+    
+    private GameSnapshot current() {
+        return games.getSnapshot(gameId).orElseThrow();
+    }
+    
+    private DeferredResult<GameDelta> poll(long knownVersion) {
+        return notifier.poll(gameId, null, this::current, knownVersion, 30_000);
+    }
+    
+    /**
+     * Juega en la primera celda que acepte la jugada y devuelve su posición
+     */
+    private int play(String playerId) {
+        for (int position = 0; position < 9; position++) {
+            if (games.makeMove(gameId, playerId, position).isSuccess()) {
+                return position;
+            }
+        }
+        throw new IllegalStateException("ninguna celda aceptó la jugada");
+    }
+    
+    /**
+     * Procesa la espera como lo haría el servlet asíncrono, para poder vencerla
+     */
+    private static MockAsyncContext startAsync(DeferredResult<GameDelta> result) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAsyncSupported(true);
+        WebAsyncManager manager = WebAsyncUtils.getAsyncManager(request);
+        manager.setAsyncWebRequest(new StandardServletAsyncWebRequest(request, new MockHttpServletResponse()));
+        manager.startDeferredResultProcessing(result);
+        return (MockAsyncContext) request.getAsyncContext();
+    }
+    
+    private static GameDelta await(DeferredResult<GameDelta> result) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!result.hasResult() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(result.hasResult());
+        return (GameDelta) result.getResult();
+    }
+}
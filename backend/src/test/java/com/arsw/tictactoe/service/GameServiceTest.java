@@ -0,0 +1,265 @@
+package com.arsw.tictactoe.service;
+
+import com.arsw.tictactoe.GameTestContext;
+import com.arsw.tictactoe.controller.GameController;
+import com.arsw.tictactoe.dto.BatchAction;
+import com.arsw.tictactoe.dto.BatchRequest;
+import com.arsw.tictactoe.dto.EventReplay;
+import com.arsw.tictactoe.dto.GameMessage;
+import com.arsw.tictactoe.model.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.MessageHeaders;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameServiceTest {
+    
+    private GameTestContext context;
+    private GameService games;
+    private String anaId;
+    private String bobId;
+    
+    @BeforeEach
+    void setUp() {
+        context = GameTestContext.start(Map.of("tictactoe.batch.max-actions", 4));
+        games = context.games();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+    
+    @Test
+    void oversizedBatchIsRejectedWithoutChangingTheGame() {
+        String gameId = games.createGame().getGameId();
+        Player ana = games.joinGame(gameId, "ana");
+        games.joinGame(gameId, "bob");
+        GameSnapshot before = games.getSnapshot(gameId).orElseThrow();
+        
+        List<BatchAction> actions = new ArrayList<>(Collections.nCopies(5,
+                new BatchAction(BatchAction.ActionType.MOVE, 0, null, null)));
+        BatchResult result = games.applyBatch(gameId, ana.getId(), actions);
+        
+        assertFalse(result.isSuccess());
+        assertTrue(result.getMessage().contains("máximo 4"));
+        assertSame(before, games.getSnapshot(gameId).orElseThrow());
+    }
+    
+    @Test
+    void leaveThenTimeOutKeepsTheGameConsistent() throws Exception {
+        String gameId = games.createGame(100, 0, TimeoutAction.FORFEIT).getGameId();
+        Player ana = games.joinGame(gameId, "ana");
+        Player bob = games.joinGame(gameId, "bob");
+        
+        games.removePlayer(gameId, ana.getId());   // Se va el jugador del turno
+        Thread.sleep(400);                         // Pasa el plazo que tenía el turno
+        
+        GameSnapshot snapshot = games.getSnapshot(gameId).orElseThrow();
+        assertEquals(GameStatus.FINISHED, snapshot.getStatus());
+        assertEquals(bob.getSymbol(), snapshot.getWinner());
+        Game game = games.getGame(gameId).orElseThrow();
+        synchronized (game) {
+            assertSame(snapshot, game.getSnapshot());
+            assertEquals(1, game.getPlayers().size());
+        }
+    }
+    
+    @Test
+    void writesToAnArchivedGameDoNotBringItBack() throws Exception {
+        context.close();
+        context = GameTestContext.start(Map.of("tictactoe.archive.delay-ms", 50));
+        games = context.games();
+        String gameId = games.createGame().getGameId();
+        Player ana = games.joinGame(gameId, "ana");
+        Player bob = games.joinGame(gameId, "bob");
+        games.removePlayer(gameId, bob.getId());
+        awaitArchived(1);
+        
+        MoveResult move = games.makeMove(gameId, ana.getId(), 0);
+        BatchResult batch = games.applyBatch(gameId, ana.getId(),
+                List.of(new BatchAction(BatchAction.ActionType.MOVE, 0, null, null)));
+        
+        assertFalse(move.isSuccess());
+        assertEquals("El juego no está activo", move.getMessage());
+        assertFalse(batch.isSuccess());
+        assertFalse(games.usePower(gameId, ana.getId(), PowerType.BLOCK_CELL, 0).isSuccess());
+        assertThrows(IllegalStateException.class, () -> games.joinGame(gameId, "carla"));
+        games.removePlayer(gameId, ana.getId());
+        assertTrue(games.getGame(gameId).isEmpty());
+        assertEquals(1, games.getArchiveStats().getArchivedGames());
+        assertEquals(GameStatus.FINISHED, games.getSnapshot(gameId).orElseThrow().getStatus());
+    }
+    
+    @Test
+    void restartFromTheArchiveKeepsPlayersAndVersions() throws Exception {
+        context.close();
+        context = GameTestContext.start(Map.of("tictactoe.archive.delay-ms", 50));
+        games = context.games();
+        String gameId = games.createGame().getGameId();
+        games.joinGame(gameId, "ana");
+        Player bob = games.joinGame(gameId, "bob");
+        games.removePlayer(gameId, bob.getId());
+        long finishedVersion = games.getSnapshot(gameId).orElseThrow().getVersion();
+        awaitArchived(1);
+        
+        Game restarted = games.restartGame(gameId);
+        
+        assertEquals(0, games.getArchiveStats().getArchivedGames());
+        assertSame(restarted, games.getGame(gameId).orElseThrow());
+        GameSnapshot snapshot = games.getSnapshot(gameId).orElseThrow();
+        assertTrue(snapshot.getVersion() > finishedVersion);
+        assertEquals(1, snapshot.getPlayers().size());
+        assertEquals(1, snapshot.getPlayers().get(0).getScore());
+    }
+    
+    @Test
+    void archivingKeepsOnlyTheLastEventSequence() throws Exception {
+        context.close();
+        context = GameTestContext.start(Map.of("tictactoe.archive.delay-ms", 50));
+        games = context.games();
+        GameBroadcaster broadcaster = context.bean(GameBroadcaster.class);
+        String gameId = games.createGame().getGameId();
+        games.joinGame(gameId, "ana");
+        Player bob = games.joinGame(gameId, "bob");
+        games.removePlayer(gameId, bob.getId());
+        GameSnapshot finished = games.getSnapshot(gameId).orElseThrow();
+        for (int i = 0; i < 3; i++) {
+            broadcaster.broadcast(gameId, new GameMessage(GameMessage.MessageType.GAME_UPDATE, finished, "evento", null));
+        }
+        awaitArchived(1);
+        
+        // Sin eventos guardados: al día con la última secuencia, el estado completo si no
+        assertEquals(List.of(), broadcaster.eventsSince(gameId, 3, finished, null).getEvents());
+        EventReplay behind = broadcaster.eventsSince(gameId, 1, finished, null);
+        assertEquals(3, behind.getLatestSequence());
+        assertNotNull(behind.getSnapshot());
+        assertNull(broadcaster.snapshotAt(gameId, finished.getVersion()));
+        
+        games.restartGame(gameId);
+        GameMessage next = broadcaster.broadcast(gameId, new GameMessage(GameMessage.MessageType.GAME_UPDATE,
+                games.getSnapshot(gameId).orElseThrow(), "revancha", null));
+        assertEquals(4, next.getSequence());
+        List<GameMessage> replay = broadcaster.eventsSince(gameId, 3, next.getGame(), null).getEvents();
+        assertEquals(1, replay.size());
+        assertEquals(4, replay.get(0).getSequence());
+    }
+    
+    @Test
+    void failingActionLeavesTheGameAsBeforeTheBatch() {
+        String gameId = plainGame(PowerType.REVEAL_TRAP);
+        Game game = games.getGame(gameId).orElseThrow();
+        GameSnapshot before = games.getSnapshot(gameId).orElseThrow();
+        
+        // La tercera falla: tras la jugada el turno ya es de bob
+        BatchResult result = games.applyBatch(gameId, anaId, List.of(
+                new BatchAction(BatchAction.ActionType.POWER, 0, PowerType.REVEAL_TRAP, null),
+                new BatchAction(BatchAction.ActionType.MOVE, 4, null, null),
+                new BatchAction(BatchAction.ActionType.MOVE, 5, null, null)));
+        
+        assertFalse(result.isSuccess());
+        assertEquals(2, result.getFailedAction());
+        assertTrue(result.getMessage().startsWith("Acción 3"));
+        assertSame(before, result.getSnapshot());
+        assertSame(before, games.getSnapshot(gameId).orElseThrow());
+        synchronized (game) {
+            assertTrue(game.getBoard().stream().noneMatch(Cell::isOccupied));
+            assertEquals(List.of(PowerType.REVEAL_TRAP), game.getPlayers().get(0).getPowers());
+            assertEquals(before.getGameLog(), game.getGameLog());
+            assertEquals(before.getCurrentPlayerIndex(), game.getCurrentPlayerIndex());
+            assertEquals(before.getVersion(), game.getVersion());
+        }
+    }
+    
+    @Test
+    void triplePlayPlacesThreePiecesInOneTurn() {
+        String gameId = plainGame(PowerType.TRIPLE_PLAY);
+        
+        BatchResult result = games.applyBatch(gameId, anaId, List.of(
+                new BatchAction(BatchAction.ActionType.POWER, 0, PowerType.TRIPLE_PLAY, List.of(0, 1, 3))));
+        
+        assertTrue(result.isSuccess(), result.getMessage());
+        GameSnapshot snapshot = result.getSnapshot();
+        for (int position : List.of(0, 1, 3)) {
+            assertEquals("X", snapshot.getBoard().get(position).getValue());
+        }
+        assertEquals(3, snapshot.getBoard().stream().filter(cell -> cell.getValue() != null).count());
+        assertEquals("bob", snapshot.getCurrentPlayer().getUsername());
+        assertTrue(snapshot.getPlayers().get(0).getPowers().isEmpty());
+        assertEquals(GameStatus.ACTIVE, snapshot.getStatus());
+    }
+    
+    @Test
+    void swapPiecesExchangesTwoOccupiedCells() {
+        String gameId = plainGame(PowerType.SWAP_PIECES);
+        assertTrue(games.makeMove(gameId, anaId, 0).isSuccess());
+        assertTrue(games.makeMove(gameId, bobId, 4).isSuccess());
+        
+        BatchResult empty = games.applyBatch(gameId, anaId, List.of(
+                new BatchAction(BatchAction.ActionType.POWER, 0, PowerType.SWAP_PIECES, List.of(0, 8))));
+        BatchResult result = games.applyBatch(gameId, anaId, List.of(
+                new BatchAction(BatchAction.ActionType.POWER, 0, PowerType.SWAP_PIECES, List.of(0, 4))));
+        
+        assertFalse(empty.isSuccess());   // La 8 está vacía
+        assertTrue(result.isSuccess(), result.getMessage());
+        assertEquals("O", result.getSnapshot().getBoard().get(0).getValue());
+        assertEquals("X", result.getSnapshot().getBoard().get(4).getValue());
+        assertTrue(result.getSnapshot().getPlayers().get(0).getPowers().isEmpty());
+    }
+    
+    @Test
+    void batchIsBroadcastOnce() {
+        context.close();
+        context = GameTestContext.start(Map.of("tictactoe.batch.max-actions", 4),
+                GameController.class, StartupMetrics.class, AdmissionControl.class);
+        games = context.games();
+        String gameId = plainGame(PowerType.REVEAL_TRAP);
+        context.sent().clear();
+        
+        BatchRequest request = new BatchRequest();
+        request.setGameId(gameId);
+        request.setPlayerId(anaId);
+        request.setActions(List.of(
+                new BatchAction(BatchAction.ActionType.POWER, 0, PowerType.REVEAL_TRAP, null),
+                new BatchAction(BatchAction.ActionType.MOVE, 4, null, null)));
+        context.bean(GameController.class).applyBatch(request, new MessageHeaders(Map.of()));
+        
+        assertEquals(List.of("/topic/game/" + gameId), context.destinations());
+        GameMessage message = context.payloads(GameMessage.class).get(0);
+        assertEquals(GameMessage.MessageType.MOVE_MADE, message.getType());
+        assertEquals(games.getSnapshot(gameId).orElseThrow().getVersion(), message.getGame().getVersion());
+    }
+    
+    /**
+     * Juego de ana y bob sin celdas especiales, con los poderes dados a ana
+     */
+    private String plainGame(PowerType... powers) {
+        String gameId = games.createGame().getGameId();
+        anaId = games.joinGame(gameId, "ana").getId();
+        bobId = games.joinGame(gameId, "bob").getId();
+        Game game = games.getGame(gameId).orElseThrow();
+        synchronized (game) {
+            game.getBoard().forEach(cell -> cell.setType(CellType.NORMAL));
+            for (PowerType power : powers) {
+                game.getPlayers().get(0).addPower(power);
+            }
+            game.publishSnapshot();
+        }
+        return gameId;
+    }
+    
+    private void awaitArchived(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (games.getArchiveStats().getArchivedGames() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(count, games.getArchiveStats().getArchivedGames());
+    }
+}
@@ -0,0 +1,115 @@
+package com.arsw.tictactoe.service;
+
+import com.arsw.tictactoe.GameTestContext;
+import com.arsw.tictactoe.dto.GameMessage;
+import com.arsw.tictactoe.model.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmark del costo de las vistas: un broadcast arma la vista de
+ * espectador y la de cada jugador una vez por versión, contra armar y
+ * serializar una vista por suscriptor
+ */
+class GameViewsBenchmarkTest {
+    
+    private static final Logger log = LoggerFactory.getLogger(GameViewsBenchmarkTest.class);
+    
+    private static final int PLAYERS = 4;
+    private static final int SUBSCRIBERS = 1000;
+    private static final int MOVES = 2000;
+    
+    private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+    private final Random random = new Random(7);
+    private GameTestContext context;
+    private GameService games;
+    private GameBroadcaster broadcaster;
+    private GameViews views;
+    
+    @BeforeEach
+    void setUp() {
+        context = GameTestContext.start();
+        games = context.games();
+        broadcaster = context.bean(GameBroadcaster.class);
+        views = context.bean(GameViews.class);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+    
+    @Test
+    void viewsCostOneProjectionPerRecipientNotPerSubscriber() {
+        String gameId = newGame();
+        List<GameSnapshot> versions = new ArrayList<>(MOVES);
+        while (versions.size() < MOVES) {
+            GameSnapshot game = games.getSnapshot(gameId).orElseThrow();
+            if (game.getStatus() != GameStatus.ACTIVE) {
+                games.restartGame(gameId);
+                continue;
+            }
+            if (games.makeMove(gameId, game.getCurrentPlayer().getId(), random.nextInt(9)).isSuccess()) {
+                versions.add(games.getSnapshot(gameId).orElseThrow());
+            }
+        }
+        context.sent().clear();
+        
+        long start = System.nanoTime();
+        for (GameSnapshot version : versions) {
+            broadcaster.broadcast(gameId, new GameMessage(GameMessage.MessageType.MOVE_MADE, version, "jugada", null));
+        }
+        double broadcastUs = (System.nanoTime() - start) / 1e3 / MOVES;
+        double sendsPerBroadcast = (double) context.sent().size() / MOVES;
+        
+        // La alternativa: armar y serializar la vista de cada suscriptor
+        int rounds = MOVES / 40;
+        start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            GameSnapshot version = versions.get(i);
+            for (int subscriber = 0; subscriber < SUBSCRIBERS; subscriber++) {
+                String viewer = version.getPlayers().get(subscriber % PLAYERS).getId();
+                serialize(new GameMessage(GameMessage.MessageType.MOVE_MADE, views.viewFor(version, viewer), "jugada", null));
+            }
+        }
+        double perSubscriberUs = (System.nanoTime() - start) / 1e3 / rounds;
+        
+        log.info(String.format("vistas por versión:       %8.1f us/broadcast  %.1f envíos/broadcast", broadcastUs, sendsPerBroadcast));
+        log.info(String.format("vista por suscriptor:     %8.1f us/broadcast  (%d suscriptores)", perSubscriberUs, SUBSCRIBERS));
+        
+        // Espectador en el tópico y un envío por jugador con sesión
+        assertEquals(PLAYERS + 1, sendsPerBroadcast);
+        GameSnapshot last = versions.get(MOVES - 1);
+        String ana = last.getPlayers().get(0).getId();
+        assertSame(views.viewFor(last, ana), views.viewFor(last, ana));
+        assertSame(views.spectator(last), views.viewFor(last, "nadie"));
+    }
+    
+    private String newGame() {
+        String id = games.createGame().getGameId();
+        for (int i = 0; i < PLAYERS; i++) {
+            Player player = games.joinGame(id, "p" + i);
+            context.connect("s" + i);
+            context.bean(PlayerSessions.class).seat(id, player.getId(), "s" + i);
+        }
+        return id;
+    }
+    
+    private int serialize(Object value) {
+        try {
+            return mapper.writeValueAsBytes(value).length;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.arsw.tictactoe.service;
+
+import com.arsw.tictactoe.GameTestContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HierarchicalTimingWheelTest {
+    
+    private static final long TICK_MS = 5;
+    private static final int THREADS = 8;
+    private static final int TIMERS_PER_THREAD = 5_000;
+    
+    private GameTestContext context;
+    private HierarchicalTimingWheel wheel;
+    
+    @BeforeEach
+    void setUp() {
+        context = GameTestContext.start(Map.of("tictactoe.timers.tick-ms", TICK_MS));
+        wheel = context.bean(HierarchicalTimingWheel.class);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+    
+    @Test
+    void concurrentSchedulesFireOnceNeverEarlyUnlessCancelled() throws Exception {
+        int total = THREADS * TIMERS_PER_THREAD;
+        AtomicIntegerArray fired = new AtomicIntegerArray(total);
+        LongAdder early = new LongAdder();
+        AtomicInteger cancelled = new AtomicInteger();
+        
+        runConcurrently(thread -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < TIMERS_PER_THREAD; i++) {
+                int id = thread * TIMERS_PER_THREAD + i;
+                // Hasta 5 s con ticks de 5 ms: cruza del nivel 0 (320 ms) al 1
+                long delay = random.nextLong(1, 5000);
+                long due = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+                HierarchicalTimingWheel.Timeout timeout = wheel.schedule(() -> {
+                    if (System.nanoTime() < due) {
+                        early.increment();
+                    }
+                    fired.incrementAndGet(id);
+                }, delay, TimeUnit.MILLISECONDS);
+                if (id % 2 == 0 && timeout.cancel()) {
+                    cancelled.incrementAndGet();
+                }
+            }
+        });
+        
+        awaitIdle(6000);
+        int once = 0;
+        for (int id = 0; id < total; id++) {
+            assertTrue(fired.get(id) <= 1, "venció dos veces: " + id);
+            once += fired.get(id);
+        }
+        assertEquals(total - cancelled.get(), once);
+        assertEquals(0, early.sum());
+        assertEquals(0, wheel.pendingCount());
+    }
+    
+    @Test
+    void cancelRacingWithExpiryEitherCancelsOrRuns() throws Exception {
+        int total = THREADS * TIMERS_PER_THREAD;
+        AtomicIntegerArray ran = new AtomicIntegerArray(total);
+        AtomicIntegerArray cancelled = new AtomicIntegerArray(total);
+        
+        runConcurrently(thread -> {
+            List<HierarchicalTimingWheel.Timeout> timeouts = new ArrayList<>(TIMERS_PER_THREAD);
+            for (int i = 0; i < TIMERS_PER_THREAD; i++) {
+                int id = thread * TIMERS_PER_THREAD + i;
+                timeouts.add(wheel.schedule(() -> ran.incrementAndGet(id), 0, TimeUnit.MILLISECONDS));
+            }
+            // Cancelar mientras el reloj los va venciendo
+            for (int i = 0; i < TIMERS_PER_THREAD; i++) {
+                if (timeouts.get(i).cancel()) {
+                    cancelled.incrementAndGet(thread * TIMERS_PER_THREAD + i);
+                }
+                if (i % 500 == 0) {
+                    Thread.sleep(1);
+                }
+            }
+        });
+        
+        awaitIdle(1000);
+        for (int id = 0; id < total; id++) {
+            assertEquals(1, ran.get(id) + cancelled.get(id), "timer " + id);
+        }
+        assertEquals(0, wheel.pendingCount());
+    }
+    
+    /**
+     * Espera a que no quede nada programado y a que terminen las tareas vencidas
+     */
+    private void awaitIdle(long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (wheel.pendingCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(TICK_MS);
+        }
+        Thread.sleep(TICK_MS * 10);
+    }
+    
+    private static void runConcurrently(ThreadTask task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>(THREADS);
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    task.run(thread);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+    
+    private interface ThreadTask {
+        void run(int thread) throws Exception;
+    }
+}
@@ -0,0 +1,125 @@
+package com.arsw.tictactoe.service;
+
+import com.arsw.tictactoe.GameTestContext;
+import com.arsw.tictactoe.dto.GameMessage;
+import com.arsw.tictactoe.dto.PlayerSeat;
+import com.arsw.tictactoe.model.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlayerSessionsTest {
+    
+    private GameTestContext context;
+    private GameService games;
+    private PlayerSessions playerSessions;
+    private GameBroadcaster broadcaster;
+    
+    @BeforeEach
+    void setUp() {
+        context = GameTestContext.start();
+        games = context.games();
+        playerSessions = context.bean(PlayerSessions.class);
+        broadcaster = context.bean(GameBroadcaster.class);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+    
+    @Test
+    void privateViewsOnlyGoToTheSessionThatJoined() {
+        String gameId = games.createGame().getGameId();
+        context.connect("s1");
+        context.connect("s2");
+        Player ana = games.joinGame(gameId, "ana");
+        PlayerSeat seat = playerSessions.seat(gameId, ana.getId(), "s1");
+        Player bob = games.joinGame(gameId, "bob");
+        playerSessions.seat(gameId, bob.getId(), "s2");
+        context.sent().clear();
+        
+        broadcaster.broadcast(gameId, new GameMessage(GameMessage.MessageType.GAME_UPDATE,
+                games.getSnapshot(gameId).orElseThrow(), "", null));
+        
+        assertEquals(List.of("/topic/game/" + gameId, "/user/s1/queue/game/" + gameId, "/user/s2/queue/game/" + gameId),
+                context.destinations());
+        assertNotNull(seat.getToken());
+        assertEquals(ana.getId(), playerSessions.playerFor(gameId, seat.getToken()));
+        assertNull(playerSessions.playerFor(gameId, ana.getId()));  // El id público no sirve de clave
+    }
+    
+    @Test
+    void seatIsSentOnlyToTheJoiningSession() {
+        String gameId = games.createGame().getGameId();
+        context.connect("s1");
+        Player ana = games.joinGame(gameId, "ana");
+        
+        PlayerSeat seat = playerSessions.seat(gameId, ana.getId(), "s1");
+        
+        Message<?> sent = context.sent().peek();
+        assertEquals("/user/s1/queue/seats", SimpMessageHeaderAccessor.getDestination(sent.getHeaders()));
+        assertEquals(seat, context.payloads(PlayerSeat.class).get(0));
+    }
+    
+    @Test
+    void resumeBindsANewSessionOnlyWithTheToken() {
+        String gameId = games.createGame().getGameId();
+        context.connect("s1");
+        context.connect("s2");
+        Player ana = games.joinGame(gameId, "ana");
+        PlayerSeat seat = playerSessions.seat(gameId, ana.getId(), "s1");
+        
+        assertNull(playerSessions.resume(gameId, ana.getId(), "s2"));
+        assertEquals(ana.getId(), playerSessions.resume(gameId, seat.getToken(), "s2"));
+        
+        context.disconnect("s1");
+        assertEquals(Set.of("s2"), playerSessions.sessionsOf(gameId, ana.getId()));
+    }
+    
+    @Test
+    void closedSessionsAreNotBound() {
+        String gameId = games.createGame().getGameId();
+        context.connect("s1");
+        Player ana = games.joinGame(gameId, "ana");
+        PlayerSeat seat = playerSessions.seat(gameId, ana.getId(), "s1");
+        context.disconnect("s1");
+        
+        // Un resume procesado después del cierre no deja la sesión colgada
+        assertNull(playerSessions.resume(gameId, seat.getToken(), "s1"));
+        assertTrue(playerSessions.sessionsOf(gameId, ana.getId()).isEmpty());
+    }
+    
+    @Test
+    void spectatorViewHidesPowersAndPlayerViewShowsOwn() {
+        String gameId = games.createGame().getGameId();
+        context.connect("s1");
+        Player ana = games.joinGame(gameId, "ana");
+        playerSessions.seat(gameId, ana.getId(), "s1");
+        games.joinGame(gameId, "bob");
+        Game game = games.getGame(gameId).orElseThrow();
+        synchronized (game) {
+            game.getPlayers().get(0).getPowers().add(PowerType.BLOCK_CELL);
+            game.getPlayers().get(1).getPowers().add(PowerType.BLOCK_CELL);
+            game.publishSnapshot();
+        }
+        context.sent().clear();
+        
+        broadcaster.broadcast(gameId, new GameMessage(GameMessage.MessageType.GAME_UPDATE,
+                games.getSnapshot(gameId).orElseThrow(), "", null));
+        
+        List<GameMessage> messages = context.payloads(GameMessage.class);
+        GameSnapshot spectator = messages.get(0).getGame();
+        GameSnapshot own = messages.get(1).getGame();
+        assertTrue(spectator.getPlayers().stream().allMatch(p -> p.getPowers().isEmpty()));
+        assertEquals(List.of(PowerType.BLOCK_CELL), own.getPlayers().get(0).getPowers());
+        assertTrue(own.getPlayers().get(1).getPowers().isEmpty());
+    }
+}
@@ -0,0 +1,176 @@
+package com.arsw.tictactoe.service;
+
+import com.arsw.tictactoe.GameTestContext;
+import com.arsw.tictactoe.event.GameFinishedEvent;
+import com.arsw.tictactoe.model.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RatingServiceTest {
+    
+    // X completa la fila de arriba
+    private static final int[] WIN = {0, 3, 1, 4, 2};
+    // Jugadas que llenan el tablero sin línea: X O X / X O O / O X X
+    private static final int[] DRAW = {0, 1, 2, 4, 3, 5, 7, 6, 8};
+    
+    @TempDir
+    Path dir;
+    
+    private GameTestContext context;
+    private RatingService ratings;
+    private int finished;
+    
+    @BeforeEach
+    void setUp() {
+        context = start();
+        ratings = context.bean(RatingService.class);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+    
+    @Test
+    void winnerGainsWhatTheLoserLoses() throws InterruptedException {
+        finish(won("ana", "bob"));
+        awaitGames(1);
+        
+        PlayerRating ana = rating("ana");
+        PlayerRating bob = rating("bob");
+        assertEquals(1216, ana.getRating(), 1e-9);   // Mismo rating: la mitad de K
+        assertEquals(1184, bob.getRating(), 1e-9);
+        assertEquals(1, ana.getWins());
+        assertEquals(1, bob.getLosses());
+        
+        finish(won("bob", "ana"));
+        awaitGames(2);
+        
+        // El que venía abajo gana más de 16, y sigue sin crearse ni perderse rating
+        assertTrue(rating("bob").getRating() - bob.getRating() > 16);
+        assertEquals(2400, rating("ana").getRating() + rating("bob").getRating(), 1e-9);
+    }
+    
+    @Test
+    void drawMovesRatingsTowardEachOther() throws InterruptedException {
+        finish(drawn("ana", "bob"));
+        awaitGames(1);
+        assertEquals(1200, rating("ana").getRating(), 1e-9);
+        assertEquals(1, rating("ana").getDraws());
+        
+        finish(won("ana", "carla"));
+        finish(drawn("ana", "bob"));
+        awaitGames(3);
+        
+        PlayerRating ana = rating("ana");
+        PlayerRating bob = rating("bob");
+        assertTrue(bob.getRating() > 1200);
+        assertEquals(1216 + 1200, ana.getRating() + bob.getRating(), 1e-9);
+        assertEquals(2, bob.getDraws());
+        assertEquals(0, bob.getWins() + bob.getLosses());
+    }
+    
+    @Test
+    void topAndRankAgreeAfterManyUpdates() throws InterruptedException {
+        Random random = new Random(5);
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            names.add("p" + i);
+        }
+        for (int i = 0; i < 500; i++) {
+            Collections.shuffle(names, random);
+            finish(random.nextInt(4) == 0 ? drawn(names.get(0), names.get(1)) : won(names.get(0), names.get(1)));
+        }
+        awaitGames(500);
+        
+        List<LeaderboardEntry> top = ratings.getTop(100);
+        assertEquals(names.size(), top.size());
+        for (int i = 0; i < top.size(); i++) {
+            LeaderboardEntry entry = top.get(i);
+            long rounded = Math.round(entry.getPlayer().getRating());
+            long above = top.stream().filter(other -> Math.round(other.getPlayer().getRating()) > rounded).count();
+            assertEquals(above + 1, entry.getRank(), entry.getPlayer().getProfileId());
+            assertEquals(entry, ratings.getEntry(entry.getPlayer().getUsername()).orElseThrow());
+            if (i > 0) {
+                assertTrue(top.get(i - 1).getPlayer().getRating() >= entry.getPlayer().getRating());
+            }
+        }
+        assertEquals(top.subList(0, 5), ratings.getTop(5));
+    }
+    
+    @Test
+    void savedTableLoadsBackTheSame() throws InterruptedException {
+        finish(won("Ana", "bob"));
+        finish(drawn("bob", "carla"));
+        finish(won("carla", "ana"));
+        awaitGames(3);
+        List<LeaderboardEntry> before = ratings.getTop(10);
+        
+        context.close();   // Guarda al apagar
+        context = start();
+        ratings = context.bean(RatingService.class);
+        
+        assertEquals(before, ratings.getTop(10));
+        assertEquals("ana", ratings.getEntry("ANA").orElseThrow().getPlayer().getUsername());   // Último nombre usado
+    }
+    
+    private GameTestContext start() {
+        return GameTestContext.start(Map.of("tictactoe.leaderboard.file", dir.resolve("leaderboard.tsv").toString()));
+    }
+    
+    private void finish(GameSnapshot game) {
+        ratings.onGameFinished(new GameFinishedEvent(game));
+        finished++;
+    }
+    
+    private static GameSnapshot won(String winner, String loser) {
+        GameSnapshot game = play(winner, loser, WIN);
+        assertEquals("X", game.getWinner());
+        return game;
+    }
+    
+    private static GameSnapshot drawn(String first, String second) {
+        GameSnapshot game = play(first, second, DRAW);
+        assertNull(game.getWinner());
+        return game;
+    }
+    
+    private static GameSnapshot play(String first, String second, int[] moves) {
+        Game game = new Game("g", BoardLayout.EMPTY);
+        game.addPlayer(new Player("a", first, "X"));
+        game.addPlayer(new Player("b", second, "O"));
+        for (int position : moves) {
+            assertTrue(game.makeMove(game.getCurrentPlayer().getId(), position).isSuccess());
+        }
+        assertEquals(GameStatus.FINISHED, game.getStatus());
+        return game.publishSnapshot();
+    }
+    
+    private PlayerRating rating(String username) {
+        return ratings.getEntry(username).orElseThrow().getPlayer();
+    }
+    
+    /**
+     * Espera a que el hilo de escritura aplique las partidas enviadas
+     * (cada una suma una partida jugada a dos jugadores)
+     */
+    private void awaitGames(int games) throws InterruptedException {
+        assertEquals(games, finished);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (played() < 2L * games && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(2L * games, played());
+    }
+    
+    private long played() {
+        return ratings.getTop(Integer.MAX_VALUE).stream().mapToLong(entry -> entry.getPlayer().getGamesPlayed()).sum();
+    }
+}
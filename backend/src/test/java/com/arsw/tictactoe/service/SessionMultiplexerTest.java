@@ -0,0 +1,112 @@
+package com.arsw.tictactoe.service;
+
+import com.arsw.tictactoe.GameTestContext;
+import com.arsw.tictactoe.dto.GameMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionMultiplexerTest {
+    
+    private static final long FLUSH_MS = 10;
+    
+    private GameTestContext context;
+    private GameService games;
+    private GameBroadcaster broadcaster;
+    private SessionMultiplexer multiplexer;
+    
+    @BeforeEach
+    void setUp() {
+        context = GameTestContext.start(Map.of("tictactoe.multiplex.flush-interval-ms", FLUSH_MS));
+        games = context.games();
+        broadcaster = context.bean(GameBroadcaster.class);
+        multiplexer = context.bean(SessionMultiplexer.class);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+    
+    @Test
+    void openSessionReceivesTheGamesItFollows() throws InterruptedException {
+        String gameId = games.createGame().getGameId();
+        context.connect("s1");
+        
+        follow("s1", gameId);
+        multiplexer.reject("s1", "nope", "Juego no encontrado");
+        settle();
+        
+        assertEquals(List.of("/user/s1/queue/games"), context.destinations().stream().distinct().toList());
+    }
+    
+    @Test
+    void commandsAfterDisconnectDoNotBringTheSessionBack() throws InterruptedException {
+        String gameId = games.createGame().getGameId();
+        context.connect("s1");
+        follow("s1", gameId);
+        context.disconnect("s1");
+        settle();
+        context.sent().clear();
+        
+        // Comandos que el broker entrega después del cierre
+        follow("s1", gameId);
+        multiplexer.reject("s1", "nope", "Juego no encontrado");
+        follow("nunca-conectada", gameId);
+        broadcaster.broadcast(gameId, new GameMessage(GameMessage.MessageType.GAME_UPDATE,
+                games.getSnapshot(gameId).orElseThrow(), "", null));
+        settle();
+        
+        assertEquals(List.of("/topic/game/" + gameId), context.destinations());
+    }
+    
+    @Test
+    void disconnectRacingWithSubscribeLeavesNoFollower() throws Exception {
+        String gameId = games.createGame().getGameId();
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 500; i++) {
+                String sessionId = "s" + i;
+                context.connect(sessionId);
+                CountDownLatch start = new CountDownLatch(1);
+                Future<?> subscribe = pool.submit(() -> {
+                    start.await();
+                    follow(sessionId, gameId);
+                    return null;
+                });
+                Future<?> close = pool.submit(() -> {
+                    start.await();
+                    context.disconnect(sessionId);
+                    return null;
+                });
+                start.countDown();
+                subscribe.get();
+                close.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        settle();
+        context.sent().clear();
+        
+        broadcaster.broadcast(gameId, new GameMessage(GameMessage.MessageType.GAME_UPDATE,
+                games.getSnapshot(gameId).orElseThrow(), "", null));
+        settle();
+        
+        assertEquals(List.of("/topic/game/" + gameId), context.destinations());
+    }
+    
+    private void follow(String sessionId, String gameId) {
+        broadcaster.attach(sessionId, gameId, null, () -> games.getSnapshot(gameId).orElse(null));
+    }
+    
+    private static void settle() throws InterruptedException {
+        Thread.sleep(FLUSH_MS * 5);
+    }
+}
@@ -0,0 +1,126 @@
+package com.arsw.tictactoe.service;
+
+import com.arsw.tictactoe.GameTestContext;
+import com.arsw.tictactoe.model.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmark de lecturas y escrituras concurrentes: lectores que serializan
+ * snapshots sin bloqueo contra lectores que serializan el Game vivo con el
+ * juego bloqueado (la alternativa con locks), con un escritor jugando a la vez
+ */
+class SnapshotReadBenchmarkTest {
+    
+    private static final Logger log = LoggerFactory.getLogger(SnapshotReadBenchmarkTest.class);
+    
+    private static final int GAMES = 200;
+    private static final int READERS = 3;
+    private static final long RUN_MS = 1000;
+    
+    private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+    private GameTestContext context;
+    private GameService games;
+    private AtomicReferenceArray<String> ids;
+    
+    @BeforeEach
+    void setUp() {
+        context = GameTestContext.start();
+        games = context.games();
+        ids = new AtomicReferenceArray<>(GAMES);
+        for (int i = 0; i < GAMES; i++) {
+            ids.set(i, newGame());
+        }
+    }
+    
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+    
+    @Test
+    void snapshotReadsDoNotBlockWriters() throws Exception {
+        Result locked = run(id -> games.getGame(id).map(game -> {
+            synchronized (game) {
+                return serialize(game);
+            }
+        }).orElse(0));
+        Result snapshots = run(id -> games.getSnapshot(id).map(this::serialize).orElse(0));
+        
+        log.info(String.format("lecturas con lock:      %,10.0f lecturas/s  %,8.0f jugadas/s", locked.reads, locked.writes));
+        log.info(String.format("lecturas de snapshots:  %,10.0f lecturas/s  %,8.0f jugadas/s", snapshots.reads, snapshots.writes));
+        assertTrue(snapshots.reads > 0 && snapshots.writes > 0);
+        assertTrue(locked.reads > 0 && locked.writes > 0);
+    }
+    
+    private int serialize(Object value) {
+        try {
+            return mapper.writeValueAsBytes(value).length;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private String newGame() {
+        String id = games.createGame().getGameId();
+        games.joinGame(id, "ana");
+        games.joinGame(id, "bob");
+        return id;
+    }
+    
+    /**
+     * Corre READERS lectores y un escritor durante RUN_MS; cuenta operaciones por segundo
+     */
+    private Result run(Function<String, Integer> read) throws Exception {
+        LongAdder reads = new LongAdder();
+        LongAdder writes = new LongAdder();
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(RUN_MS);
+        ExecutorService pool = Executors.newFixedThreadPool(READERS + 1);
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int r = 0; r < READERS; r++) {
+            tasks.add(pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < end) {
+                    read.apply(ids.get(random.nextInt(GAMES)));
+                    reads.increment();
+                }
+            }));
+        }
+        tasks.add(pool.submit(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (System.nanoTime() < end) {
+                int slot = random.nextInt(GAMES);
+                GameSnapshot game = games.getSnapshot(ids.get(slot)).orElseThrow();
+                if (game.getStatus() != GameStatus.ACTIVE) {
+                    ids.set(slot, newGame());
+                    continue;
+                }
+                if (games.makeMove(game.getGameId(), game.getCurrentPlayer().getId(), random.nextInt(9)).isSuccess()) {
+                    writes.increment();
+                }
+            }
+        }));
+        for (Future<?> task : tasks) {
+            task.get();
+        }
+        pool.shutdown();
+        double seconds = RUN_MS / 1000.0;
+        return new Result(reads.sum() / seconds, writes.sum() / seconds);
+    }
+    
+    private record Result(double reads, double writes) {
+    }
+}
@@ -0,0 +1,143 @@
+package com.arsw.tictactoe.service;
+
+import com.arsw.tictactoe.GameTestContext;
+import com.arsw.tictactoe.model.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Torneos completos sobre partidas reales: 1.024 jugadores jugando al azar
+ * en paralelo y rondas con partidas abandonadas o sin jugadas
+ */
+class TournamentSimulationTest {
+    
+    private static final Logger log = LoggerFactory.getLogger(TournamentSimulationTest.class);
+    
+    private GameTestContext context;
+    
+    @AfterEach
+    void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+    
+    @ParameterizedTest
+    @EnumSource(TournamentFormat.class)
+    void thousandPlayersReachAChampion(TournamentFormat format) throws Exception {
+        context = GameTestContext.start(TournamentService.class);
+        GameService games = context.games();
+        TournamentService tournaments = context.bean(TournamentService.class);
+        
+        List<String> names = IntStream.range(0, 1024).mapToObj(i -> "p" + i).collect(Collectors.toList());
+        Tournament tournament = tournaments.createTournament("sim", format, names, null);
+        long start = System.nanoTime();
+        tournaments.startTournament(tournament.getTournamentId());
+        
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            int passes = 0;
+            while (tournament.getStatus() != TournamentStatus.FINISHED) {
+                assertTrue(++passes <= 100, "El torneo no avanza");
+                List<Callable<Void>> jobs = new ArrayList<>();
+                for (Match match : tournament.getMatches()) {
+                    if (!match.isFinished()) {
+                        jobs.add(() -> playRandomly(games, match.getGameId()));
+                    }
+                }
+                for (Future<Void> job : pool.invokeAll(jobs)) {
+                    job.get();
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        
+        assertNotNull(tournament.getChampionId());
+        assertEquals(tournament.getTotalRounds(), tournament.getCurrentRound());
+        if (format == TournamentFormat.SINGLE_ELIMINATION) {
+            assertEquals(10, tournament.getCurrentRound());
+        }
+        log.info("{}: 1024 jugadores, {} rondas en {} ms", format, tournament.getCurrentRound(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+    
+    @Test
+    void abandonedGamesDoNotStallTheRound() throws Exception {
+        context = GameTestContext.start(TournamentService.class);
+        GameService games = context.games();
+        TournamentService tournaments = context.bean(TournamentService.class);
+        Tournament tournament = tournaments.createTournament("abandono", TournamentFormat.SINGLE_ELIMINATION,
+                List.of("ana", "bob", "carla", "dani"), null);
+        tournaments.startTournament(tournament.getTournamentId());
+        
+        // En una partida se va uno; en la otra se van los dos
+        List<Match> first = tournament.getMatches();
+        games.removePlayer(first.get(0).getGameId(), first.get(0).getPlayerBId());
+        games.removePlayer(first.get(1).getGameId(), first.get(1).getPlayerAId());
+        games.removePlayer(first.get(1).getGameId(), first.get(1).getPlayerBId());
+        
+        // Gana quien se quedó: el primero que se va deja la partida al rival
+        assertEquals(2, tournament.getCurrentRound());
+        Match last = tournament.getMatches().get(0);
+        assertEquals(first.get(0).getPlayerAId(), last.getPlayerAId());
+        assertEquals(first.get(1).getPlayerBId(), last.getPlayerBId());
+    }
+    
+    @Test
+    void idlePlayersLoseOnTime() throws Exception {
+        context = GameTestContext.start(Map.of("tictactoe.tournament.turn-time-ms", 100), TournamentService.class);
+        TournamentService tournaments = context.bean(TournamentService.class);
+        Tournament tournament = tournaments.createTournament("plazo", TournamentFormat.SINGLE_ELIMINATION,
+                List.of("ana", "bob", "carla", "dani"), null);
+        tournaments.startTournament(tournament.getTournamentId());
+        
+        // Nadie juega: cada turno vence y la ronda avanza sola hasta la final
+        long deadline = System.currentTimeMillis() + 5000;
+        while (tournament.getStatus() != TournamentStatus.FINISHED && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        
+        assertEquals(TournamentStatus.FINISHED, tournament.getStatus());
+        assertNotNull(tournament.getChampionId());
+    }
+    
+    @Test
+    void drawWithoutAGameToRestartIsResolved() {
+        Tournament tournament = new Tournament("t", "empate", TournamentFormat.SINGLE_ELIMINATION,
+                List.of(new TournamentPlayer("a", "ana"), new TournamentPlayer("b", "bob")), 1);
+        tournament.beginRound(List.of(tournament.pairNextRound().get(0).withGameId("g")));
+        
+        assertEquals(Tournament.Outcome.REMATCH, tournament.recordResult("g", null));
+        assertEquals(Tournament.Outcome.ROUND_COMPLETE, tournament.recordResult("g", null, false));
+        Match match = tournament.getMatches().get(0);
+        assertTrue(match.isFinished());
+        assertEquals(match.getPlayerAId(), match.getWinnerId());
+    }
+    
+    /**
+     * Juega al azar hasta que la partida termine (las revanchas reinician la
+     * misma partida dentro de la jugada que empató)
+     */
+    private static Void playRandomly(GameService games, String gameId) {
+        GameSnapshot snapshot = games.getSnapshot(gameId).orElseThrow();
+        while (snapshot.getStatus() == GameStatus.ACTIVE) {
+            games.makeMove(gameId, snapshot.getCurrentPlayer().getId(), ThreadLocalRandom.current().nextInt(9));
+            snapshot = games.getSnapshot(gameId).orElseThrow();
+        }
+        return null;
+    }
+}
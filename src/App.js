@@ -197,9 +197,35 @@ export default function Game() {
   
   // Reconectar automáticamente al juego guardado
   const hasAttemptedReconnect = useRef(false);
+  // Última secuencia de evento recibida del juego (0 = ninguna)
+  const lastSequenceRef = useRef(0);
+  // Secuencia de nuestros comandos y los que aún no tienen confirmación
+  const commandSequenceRef = useRef(Number(localStorage.getItem('tictactoe_commandSequence')) || 0);
+  const pendingCommandsRef = useRef(new Map());
+  // Suscripción actual al juego (vista de espectador o la nuestra como jugador)
+  const gameSubscriptionRef = useRef(null);
+  // Asiento recibido al unirnos: la clave pide nuestra vista (el id del jugador es público)
+  const seatRef = useRef(JSON.parse(localStorage.getItem('tictactoe_seat') || 'null'));
   
   useEffect(() => {
-    if (isConnected && gameId && username && !game && stompClientRef.current && !hasAttemptedReconnect.current) {
+    if (!isConnected || !gameId || !stompClientRef.current) {
+      return;
+    }
+    
+    // Ya somos jugadores de este juego: ligar la sesión nueva con nuestra clave y pedir solo lo perdido
+    const seat = seatRef.current;
+    if (currentPlayer && seat && seat.gameId === gameId) {
+      console.log('Resuscribiendo al juego:', gameId, 'desde la secuencia', lastSequenceRef.current);
+      subscribeToGame(gameId, seat.token);
+      stompClientRef.current.publish({
+        destination: '/app/game/resume',
+        body: JSON.stringify({ gameId, token: seat.token })
+      });
+      catchUp(gameId, seat.token);
+      return;
+    }
+    
+    if (username && !game && !hasAttemptedReconnect.current) {
       // Esperar un poco para asegurar que el WebSocket esté listo
       const timer = setTimeout(() => {
         console.log('Intentando reconectar al juego:', gameId);
@@ -210,6 +236,26 @@ export default function Game() {
     }
   }, [isConnected]);
   
+  // Confirmaciones de nuestros comandos numerados (solo a la sesión que los mandó)
+  useEffect(() => {
+    if (!isConnected || !gameId || !currentPlayer?.id || !stompClientRef.current) {
+      return;
+    }
+    const subscription = stompClientRef.current.subscribe(
+      '/user/queue/commands',
+      (message) => {
+        const ack = JSON.parse(message.body);
+        pendingCommandsRef.current.delete(ack.sequence);
+        if (!ack.success && !ack.duplicate) {
+          console.warn('Comando rechazado:', ack.sequence, ack.message);
+        }
+      }
+    );
+    // Tras reconectar, reenviar lo que quedó sin confirmar
+    resendPendingCommands();
+    return () => subscription.unsubscribe();
+  }, [isConnected, gameId, currentPlayer?.id]);
+  
   // Guardar snapshots del juego
   useEffect(() => {
     if (game && game.board) {
@@ -262,6 +308,17 @@ export default function Game() {
       },
       onConnect: () => {
         console.log('Conectado a WebSocket');
+        gameSubscriptionRef.current = null; // Las suscripciones de la conexión anterior ya no existen
+        stompClient.reconnectDelay = 5000;
+        // Pedidos rechazados por carga: solo le llegan a esta sesión
+        stompClient.subscribe('/user/queue/errors', (message) => {
+          const busy = JSON.parse(message.body);
+          setMessage(`${busy.message}. Reintenta en ${busy.retryAfterSeconds} s`);
+        });
+        // Al unirnos, nuestra clave de jugador llega solo a esta sesión
+        stompClient.subscribe('/user/queue/seats', (message) => {
+          takeSeat(JSON.parse(message.body));
+        });
         setIsConnected(true);
       },
       onDisconnect: () => {
@@ -270,6 +327,12 @@ export default function Game() {
       },
       onStompError: (frame) => {
         console.error('Error STOMP:', frame);
+        // Conexión rechazada por carga: esperar lo que indica el servidor antes de reintentar
+        const retryAfter = Number(frame.headers['retry-after']);
+        if (retryAfter > 0) {
+          stompClient.reconnectDelay = retryAfter * 1000;
+          setMessage(`${frame.headers.message}. Reintentando en ${retryAfter} s`);
+        }
       }
     });
     
@@ -291,6 +354,12 @@ export default function Game() {
         headers: { 'Content-Type': 'application/json' }
       });
       
+      if (response.status === 503) {
+        const busy = await response.json();
+        setMessage(`${busy.message}. Reintenta en ${busy.retryAfterSeconds} s`);
+        return;
+      }
+      
       const newGame = await response.json();
       setGameId(newGame.gameId);
       setMessage(`Juego creado: ${newGame.gameId}`);
@@ -300,6 +369,109 @@ export default function Game() {
     }
   };
   
+  // Procesar un mensaje del juego (en vivo o recuperado tras reconectar)
+  const applyGameMessage = (gameMessage) => {
+    if (gameMessage.sequence) {
+      lastSequenceRef.current = gameMessage.sequence;
+    }
+    
+    if (gameMessage.game) {
+      setGame(gameMessage.game);
+    }
+    
+    if (gameMessage.message) {
+      setMessage(gameMessage.message);
+    }
+  };
+  
+  // Nos unimos: guardar la clave y pasar de la vista de espectador a la nuestra (con nuestros poderes)
+  const takeSeat = async (seat) => {
+    seatRef.current = seat;
+    localStorage.setItem('tictactoe_seat', JSON.stringify(seat));
+    subscribeToGame(seat.gameId, seat.token);
+    try {
+      const response = await fetch(`/api/games/${seat.gameId}?token=${seat.token}`);
+      const view = await response.json();
+      const player = view.players.find(p => p.id === seat.playerId);
+      setGame(view);
+      setCurrentPlayer(player);
+      localStorage.setItem('tictactoe_currentPlayer', JSON.stringify(player));
+      setMessage(`Te uniste como ${player.symbol}`);
+    } catch (error) {
+      console.error('Error obteniendo nuestra vista:', error);
+    }
+  };
+  
+  // Pedir al servidor solo los eventos posteriores a la última secuencia recibida
+  const catchUp = async (id, token) => {
+    try {
+      const viewer = token ? `&token=${token}` : '';
+      const response = await fetch(`/api/games/${id}/events?since=${lastSequenceRef.current}${viewer}`);
+      const replay = await response.json();
+      
+      if (replay.snapshot) {
+        // El buffer ya rotó: usar el estado completo
+        setGame(replay.snapshot);
+        lastSequenceRef.current = replay.latestSequence;
+      } else {
+        replay.events.forEach(applyGameMessage);
+      }
+    } catch (error) {
+      console.error('Error recuperando eventos:', error);
+    }
+  };
+  
+  // Suscribirse al canal del juego detectando huecos en la secuencia
+  // Un jugador recibe su propia vista en su cola privada; sin clave, la de espectador
+  const subscribeToGame = (id, token) => {
+    const destination = token ? `/user/queue/game/${id}` : `/topic/game/${id}`;
+    const current = gameSubscriptionRef.current;
+    if (current && current.destination === destination) {
+      return; // Ya suscritos a esta vista
+    }
+    if (current) {
+      current.subscription.unsubscribe();
+    }
+    const subscription = stompClientRef.current.subscribe(destination, (message) => {
+      const gameMessage = JSON.parse(message.body);
+      console.log('Mensaje recibido:', gameMessage);
+      
+      const last = lastSequenceRef.current;
+      if (gameMessage.sequence && last && gameMessage.sequence <= last) {
+        return; // Ya lo teníamos
+      }
+      if (gameMessage.sequence && last && gameMessage.sequence > last + 1) {
+        catchUp(id, token); // Faltan eventos intermedios
+        return;
+      }
+      applyGameMessage(gameMessage);
+    });
+    gameSubscriptionRef.current = { destination, subscription };
+  };
+  
+  // Enviar un comando numerado; si se pierde la conexión se reenvía igual
+  // y el servidor descarta los que ya había aplicado
+  const sendCommand = (destination, payload) => {
+    const sequence = ++commandSequenceRef.current;
+    localStorage.setItem('tictactoe_commandSequence', String(sequence));
+    pendingCommandsRef.current.set(sequence, { destination, payload });
+    publishCommand(destination, payload, sequence);
+  };
+  
+  const resendPendingCommands = () => {
+    pendingCommandsRef.current.forEach(({ destination, payload }, sequence) => {
+      publishCommand(destination, payload, sequence);
+    });
+  };
+  
+  // "since" es nuestro primer comando sin confirmar: si el servidor olvidó
+  // nuestra ventana, retoma la numeración desde ahí
+  const publishCommand = (destination, payload, sequence) => {
+    const since = Math.min(...pendingCommandsRef.current.keys());
+    const body = JSON.stringify({ ...payload, sequence, since });
+    stompClientRef.current.publish({ destination, body });
+  };
+  
   // Unirse a un juego
   const joinGame = () => {
     if (!gameId || !username) {
@@ -324,28 +496,7 @@ export default function Game() {
       localStorage.setItem('tictactoe_username', username);
       
       // Suscribirse al canal del juego
-      stompClientRef.current.subscribe(`/topic/game/${gameId}`, (message) => {
-        const gameMessage = JSON.parse(message.body);
-        console.log('Mensaje recibido:', gameMessage);
-        
-        if (gameMessage.game) {
-          setGame(gameMessage.game);
-        }
-        
-        // Si es el mensaje de unirse, guardar el ID del jugador
-        if (gameMessage.type === 'PLAYER_JOINED' && gameMessage.playerId) {
-          const player = gameMessage.game.players.find(p => p.id === gameMessage.playerId);
-          if (player && player.username === username) {
-            setCurrentPlayer(player);
-            localStorage.setItem('tictactoe_currentPlayer', JSON.stringify(player));
-            setMessage(`Te uniste como ${player.symbol}`);
-          }
-        }
-        
-        if (gameMessage.message) {
-          setMessage(gameMessage.message);
-        }
-      });
+      subscribeToGame(gameId);
       
       // Enviar petición de unirse
       stompClientRef.current.publish({
@@ -381,13 +532,10 @@ export default function Game() {
       return;
     }
     
-    stompClientRef.current.publish({
-      destination: '/app/game/move',
-      body: JSON.stringify({
-        gameId: game.gameId,
-        playerId: currentPlayer.id,
-        position: position
-      })
+    sendCommand('/app/game/move', {
+      gameId: game.gameId,
+      playerId: currentPlayer.id,
+      position: position
     });
   };
   
@@ -405,14 +553,11 @@ export default function Game() {
       setMessage(`🎯 Selecciona una celda del tablero para usar: ${getPowerDescription(powerType)}`);
     } else {
       // Usar el poder directamente
-      stompClientRef.current.publish({
-        destination: '/app/game/power',
-        body: JSON.stringify({
-          gameId: game.gameId,
-          playerId: currentPlayer.id,
-          powerType: powerType,
-          targetPosition: -1
-        })
+      sendCommand('/app/game/power', {
+        gameId: game.gameId,
+        playerId: currentPlayer.id,
+        powerType: powerType,
+        targetPosition: -1
       });
       setMessage(`⚡ Poder usado: ${powerType.replace(/_/g, ' ')}`);
     }
@@ -421,14 +566,11 @@ export default function Game() {
   // Manejar clic en celda cuando hay un poder seleccionado
   const handleCellClickWithPower = (position) => {
     if (selectedPower) {
-      stompClientRef.current.publish({
-        destination: '/app/game/power',
-        body: JSON.stringify({
-          gameId: game.gameId,
-          playerId: currentPlayer.id,
-          powerType: selectedPower,
-          targetPosition: position
-        })
+      sendCommand('/app/game/power', {
+        gameId: game.gameId,
+        playerId: currentPlayer.id,
+        powerType: selectedPower,
+        targetPosition: position
       });
       setSelectedPower(null);
       setMessage(`⚡ Poder usado en posición ${position}`);
@@ -473,11 +615,17 @@ export default function Game() {
     
     // Reiniciar flag de reconexión
     hasAttemptedReconnect.current = false;
+    lastSequenceRef.current = 0;
+    commandSequenceRef.current = 0;
+    pendingCommandsRef.current.clear();
+    seatRef.current = null;
     
     // Limpiar localStorage
     localStorage.removeItem('tictactoe_gameId');
     localStorage.removeItem('tictactoe_username');
     localStorage.removeItem('tictactoe_currentPlayer');
+    localStorage.removeItem('tictactoe_commandSequence');
+    localStorage.removeItem('tictactoe_seat');
   };
   
   // Interfaz de conexión